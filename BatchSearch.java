@@ -0,0 +1,200 @@
+package com.amfk.lab12;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Looks up many keys in one sorted int array, for
+ * {@link RecursiveBinarySearch#binarySearchBatch(int[], int[], int[], ForkJoinPool, int)}.
+ * 
+ * A batch is answered in one of three ways:
+ * - queries already in ascending order are answered in one forward pass that gallops from the
+ *   previous answer, costing O(log d) per query for a distance d between answers;
+ * - large unsorted batches are sorted first, as packed (query, position) longs, and then answered
+ *   the same way, which turns a dense batch into a merge of two sorted sequences;
+ * - small unsorted batches run LANES independent searches in lockstep, so the CPU has that many
+ *   cache misses in flight instead of one.
+ */
+final class BatchSearch {
+
+    /** Queries answered by one fork-join task by default. */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+    /** Searches interleaved by the unsorted path. */
+    static final int LANES = 8;
+    /** An unsorted batch is sorted first when it has at least one query per this many keys. */
+    static final int SORT_DENSITY = 64;
+
+    private BatchSearch() {
+    }
+
+    /**
+     * Answers every query, splitting the batch in halves on the pool down to chunkSize queries.
+     * 
+     * @throws IllegalArgumentException if results is shorter than queries or chunkSize is not positive
+     */
+    static void search(int[] array, int[] queries, int[] results, ForkJoinPool pool, int chunkSize) {
+        if (results.length < queries.length) {
+            throw new IllegalArgumentException(
+                    "Results length " + results.length + " is shorter than queries length " + queries.length);
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (array == null || array.length == 0) {
+            Arrays.fill(results, 0, queries.length, -1);
+        } else if (queries.length <= chunkSize) {
+            search(array, queries, results, 0, queries.length);
+        } else {
+            pool.invoke(new SearchTask(array, queries, results, 0, queries.length, chunkSize));
+        }
+    }
+
+    /** Answers queries[from, to) against a non-empty array, choosing the cheapest strategy. */
+    static void search(int[] array, int[] queries, int[] results, int from, int to) {
+        if (isSorted(queries, from, to)) {
+            searchAscending(array, queries, results, from, to);
+        } else if ((long) (to - from) * SORT_DENSITY >= array.length) {
+            searchSorting(array, queries, results, from, to);
+        } else {
+            searchInterleaved(array, queries, results, from, to);
+        }
+    }
+
+    private static boolean isSorted(int[] queries, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (queries[i - 1] > queries[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Answers ascending queries in one forward pass over the array. */
+    static void searchAscending(int[] array, int[] queries, int[] results, int from, int to) {
+        int position = 0;
+        for (int i = from; i < to; i++) {
+            int query = queries[i];
+            position = gallop(array, query, position);
+            results[i] = found(array, query, position);
+        }
+    }
+
+    /** Sorts the queries with their positions packed into longs, then answers them in ascending order. */
+    static void searchSorting(int[] array, int[] queries, int[] results, int from, int to) {
+        long[] packed = new long[to - from];
+        for (int i = from; i < to; i++) {
+            packed[i - from] = (long) queries[i] << 32 | i;
+        }
+        Arrays.sort(packed);
+        int position = 0;
+        for (long entry : packed) {
+            int query = (int) (entry >> 32);
+            position = gallop(array, query, position);
+            results[(int) entry] = found(array, query, position);
+        }
+    }
+
+    /**
+     * Runs LANES binary searches in lockstep. They all cover the whole array, so they share the
+     * sequence of halvings and only differ in their base index.
+     */
+    static void searchInterleaved(int[] array, int[] queries, int[] results, int from, int to) {
+        int n = array.length;
+        int i = from;
+        for (; i + LANES <= to; i += LANES) {
+            int q0 = queries[i], q1 = queries[i + 1], q2 = queries[i + 2], q3 = queries[i + 3];
+            int q4 = queries[i + 4], q5 = queries[i + 5], q6 = queries[i + 6], q7 = queries[i + 7];
+            int b0 = 0, b1 = 0, b2 = 0, b3 = 0, b4 = 0, b5 = 0, b6 = 0, b7 = 0;
+            int length = n;
+            while (length > 1) {
+                int half = length >>> 1;
+                int probe = half - 1;
+                b0 = array[b0 + probe] < q0 ? b0 + half : b0;
+                b1 = array[b1 + probe] < q1 ? b1 + half : b1;
+                b2 = array[b2 + probe] < q2 ? b2 + half : b2;
+                b3 = array[b3 + probe] < q3 ? b3 + half : b3;
+                b4 = array[b4 + probe] < q4 ? b4 + half : b4;
+                b5 = array[b5 + probe] < q5 ? b5 + half : b5;
+                b6 = array[b6 + probe] < q6 ? b6 + half : b6;
+                b7 = array[b7 + probe] < q7 ? b7 + half : b7;
+                length -= half;
+            }
+            results[i] = finish(array, q0, b0);
+            results[i + 1] = finish(array, q1, b1);
+            results[i + 2] = finish(array, q2, b2);
+            results[i + 3] = finish(array, q3, b3);
+            results[i + 4] = finish(array, q4, b4);
+            results[i + 5] = finish(array, q5, b5);
+            results[i + 6] = finish(array, q6, b6);
+            results[i + 7] = finish(array, q7, b7);
+        }
+        for (; i < to; i++) {
+            results[i] = found(array, queries[i], RecursiveBinarySearch.lowerBoundBranchless(array, queries[i], 0, n));
+        }
+    }
+
+    /** Completes a search whose range has narrowed to the one index base. */
+    private static int finish(int[] array, int query, int base) {
+        return found(array, query, array[base] < query ? base + 1 : base);
+    }
+
+    /** @return position if it holds query, otherwise -1 */
+    private static int found(int[] array, int query, int position) {
+        return position < array.length && array[position] == query ? position : -1;
+    }
+
+    /**
+     * Finds the lower bound of target at or after start by exponential search from start.
+     * Every element before start must be less than target.
+     */
+    static int gallop(int[] array, int target, int start) {
+        int n = array.length;
+        if (start >= n || array[start] >= target) {
+            return start;
+        }
+        // array[low] < target; double the step until array[low + step] >= target or the end
+        int low = start;
+        int step = 1;
+        while (step < n - low && array[low + step] < target) {
+            low += step;
+            step <<= 1;
+        }
+        int high = step < n - low ? low + step : n;
+        return low + 1 >= high ? high : RecursiveBinarySearch.lowerBoundBranchless(array, target, low + 1, high);
+    }
+
+    /**
+     * Answers a range of a batch, splitting it in halves while it is larger than one chunk.
+     */
+    private static final class SearchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] array;
+        private final int[] queries;
+        private final int[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        SearchTask(int[] array, int[] queries, int[] results, int from, int to, int chunkSize) {
+            this.array = array;
+            this.queries = queries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                search(array, queries, results, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SearchTask(array, queries, results, from, mid, chunkSize),
+                    new SearchTask(array, queries, results, mid, to, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchSearchTest {
+
+    private static int[] sortedRandom(Random random, int size, int bound) {
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = random.nextInt(bound);
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static void assertBatchMatchesSingleSearches(int[] array, int[] queries, int chunkSize) {
+        int[] results = new int[queries.length];
+        RecursiveBinarySearch.binarySearchBatch(array, queries, results, ForkJoinPool.commonPool(), chunkSize);
+        for (int i = 0; i < queries.length; i++) {
+            assertEquals(RecursiveBinarySearch.binarySearchIterative(array, queries[i], 0, array.length - 1), results[i],
+                    "query " + queries[i] + " at " + i);
+        }
+    }
+
+    @Test
+    void testBinarySearchBatch_sparseUnsortedQueriesInterleaved() {
+        Random random = new Random(14);
+        int[] array = sortedRandom(random, 100_000, 300_000);
+        int[] queries = new int[1003];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextInt(300_010) - 5;
+        }
+        assertBatchMatchesSingleSearches(array, queries, BatchSearch.DEFAULT_CHUNK_SIZE);
+    }
+
+    @Test
+    void testBinarySearchBatch_denseUnsortedQueriesSortedFirst() {
+        Random random = new Random(15);
+        int[] array = sortedRandom(random, 5000, 8000);
+        int[] queries = new int[20_000];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextInt(8200) - 100;
+        }
+        assertBatchMatchesSingleSearches(array, queries, BatchSearch.DEFAULT_CHUNK_SIZE);
+        assertBatchMatchesSingleSearches(array, queries, 1000);
+    }
+
+    @Test
+    void testBinarySearchBatch_ascendingQueriesGallop() {
+        Random random = new Random(16);
+        int[] array = sortedRandom(random, 50_000, 1_000_000);
+        int[] queries = sortedRandom(random, 300, 1_100_000);
+        assertBatchMatchesSingleSearches(array, queries, BatchSearch.DEFAULT_CHUNK_SIZE);
+        assertBatchMatchesSingleSearches(array, Arrays.copyOf(array, array.length), 7);
+    }
+
+    @Test
+    void testBinarySearchBatch_duplicatesAndExtremes() {
+        int[] array = {Integer.MIN_VALUE, 1, 1, 1, 5, 5, Integer.MAX_VALUE};
+        int[] queries = {5, 1, Integer.MAX_VALUE, Integer.MIN_VALUE, 2, 1, 6, 0, 5, 1, Integer.MIN_VALUE};
+        int[] results = new int[queries.length];
+        RecursiveBinarySearch.binarySearchBatch(array, queries, results);
+        assertArrayEquals(new int[] {4, 1, 6, 0, -1, 1, -1, -1, 4, 1, 0}, results);
+        assertBatchMatchesSingleSearches(array, queries, 2);
+    }
+
+    @Test
+    void testBinarySearchBatch_emptyAndInvalidArguments() {
+        int[] results = {7, 7};
+        RecursiveBinarySearch.binarySearchBatch(new int[0], new int[] {1, 2}, results);
+        assertArrayEquals(new int[] {-1, -1}, results);
+        RecursiveBinarySearch.binarySearchBatch(null, new int[] {1}, results);
+        assertEquals(-1, results[0]);
+        assertThrows(IllegalArgumentException.class,
+                () -> RecursiveBinarySearch.binarySearchBatch(new int[] {1}, new int[3], new int[2]));
+        assertThrows(IllegalArgumentException.class, () -> RecursiveBinarySearch.binarySearchBatch(new int[] {1},
+                new int[1], new int[1], ForkJoinPool.commonPool(), 0));
+    }
+
+    @Test
+    void testGallop_findsLowerBoundFromStart() {
+        int[] array = {1, 3, 5, 7, 9, 11, 13, 15, 17};
+        for (int start = 0; start <= array.length; start++) {
+            for (int target = 0; target <= 18; target++) {
+                int expected = RecursiveBinarySearch.lowerBound(array, target);
+                if (expected >= start) {
+                    assertEquals(expected, BatchSearch.gallop(array, target, start));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.amfk.lab12;
+
+import java.util.Arrays;
+
+/**
+ * A sorted int array stored as an implicit static B-tree (an S-tree) whose nodes hold
+ * 16 keys, one 64-byte cache line each. Node k has children k * 17 + 1 to k * 17 + 17.
+ * 
+ * A search reads one node per level and counts the keys in it that are less than the
+ * target with a branch-free loop; the count selects the child to descend into. A tree
+ * over 100 million keys has 7 levels, so a lookup touches 7 cache lines instead of the
+ * 27 of a binary search.
+ * 
+ * The index holds the keys plus their positions in the sorted array, 8 bytes per key
+ * plus padding of the last node.
+ */
+public final class BlockedIntIndex implements SortedIntIndex {
+
+    /** Keys per node: 16 ints fill one 64-byte cache line. */
+    static final int NODE_SIZE = 16;
+
+    /** Keys node by node; unused slots of the last nodes hold Integer.MAX_VALUE. */
+    private final int[] keys;
+    /** Position in the sorted array of each key slot; size() for padding and the extra last slot. */
+    private final int[] ranks;
+    private final int[] sorted;
+    private final int nodeCount;
+
+    /**
+     * Builds an index over a sorted array.
+     * 
+     * @param sorted the keys in ascending order; the array must not be modified afterwards
+     * 
+     * Preconditions:
+     * - sorted is in ascending order; duplicates are allowed.
+     */
+    public BlockedIntIndex(int[] sorted) {
+        this.sorted = sorted;
+        this.nodeCount = (sorted.length + NODE_SIZE - 1) / NODE_SIZE;
+        this.keys = new int[nodeCount * NODE_SIZE];
+        this.ranks = new int[nodeCount * NODE_SIZE + 1];
+        Arrays.fill(keys, Integer.MAX_VALUE);
+        Arrays.fill(ranks, sorted.length);
+        build(0, 0);
+    }
+
+    /**
+     * Fills the subtree rooted at node k by an in-order walk: child 0, key 0, child 1, ...
+     * Padding slots come last in that order, so they never hide a real key equal to
+     * Integer.MAX_VALUE.
+     * 
+     * @return the next position of the sorted array to place
+     */
+    private int build(int k, int next) {
+        if (k >= nodeCount) {
+            return next;
+        }
+        for (int i = 0; i < NODE_SIZE; i++) {
+            next = build(child(k, i), next);
+            if (next < sorted.length) {
+                keys[k * NODE_SIZE + i] = sorted[next];
+                ranks[k * NODE_SIZE + i] = next++;
+            }
+        }
+        return build(child(k, NODE_SIZE), next);
+    }
+
+    private static int child(int k, int i) {
+        return k * (NODE_SIZE + 1) + i + 1;
+    }
+
+    @Override
+    public int size() {
+        return sorted.length;
+    }
+
+    @Override
+    public int keyAt(int index) {
+        return sorted[index];
+    }
+
+    @Override
+    public int lowerBound(int target) {
+        return ranks[descend(target)];
+    }
+
+    @Override
+    public int indexOf(int target) {
+        int slot = descend(target);
+        return slot < keys.length && keys[slot] == target ? ranks[slot] : -1;
+    }
+
+    /**
+     * Walks from the root to a leaf and returns the slot of the first key not less than
+     * target, or keys.length if there is none.
+     */
+    private int descend(int target) {
+        int[] keys = this.keys;
+        int slot = keys.length;
+        int k = 0;
+        while (k < nodeCount) {
+            int base = k * NODE_SIZE;
+            int i = 0;
+            for (int j = 0; j < NODE_SIZE; j++) {
+                i += keys[base + j] < target ? 1 : 0;
+            }
+            // The first key >= target in this node; deeper nodes can only improve on it
+            slot = i < NODE_SIZE ? base + i : slot;
+            k = child(k, i);
+        }
+        return slot;
+    }
+}
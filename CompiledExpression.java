@@ -0,0 +1,420 @@
+package com.amfk.lab12;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An arithmetic expression that has already been parsed into an immutable tree.
+ * Instances are produced by {@link RecursiveMathParser#compile(String)} and can be
+ * evaluated any number of times, from any number of threads, without re-reading
+ * the source text.
+ * 
+ * Expressions may refer to named variables. Each distinct name is given a slot in
+ * order of first appearance, and values are supplied in that order; see
+ * {@link #variables()}.
+ */
+public final class CompiledExpression {
+
+    /**
+     * Deepest tree evaluated by recursion. Deeper trees, such as long machine-generated
+     * sums, are evaluated by the iterative {@link ExpressionProgram} so that they cannot
+     * overflow the Java stack. So are optimized expressions with shared subexpressions,
+     * which the program evaluates once each.
+     */
+    static final int MAX_RECURSIVE_DEPTH = 256;
+
+    /**
+     * Number of evaluations after which an expression is translated to bytecode, set with
+     * the system property com.amfk.lab12.compileThreshold. A negative value turns
+     * automatic translation off.
+     */
+    static final int COMPILE_THRESHOLD = Integer.getInteger("com.amfk.lab12.compileThreshold", 10000);
+
+    private static final double[] NO_VALUES = new double[0];
+
+    final Node root;
+    private final String[] variables;
+    /** Number of nodes before optimization, or -1 if this expression was not optimized. */
+    private final int sourceNodeCount;
+    /** Whether some operator node has several parents, which recursion would evaluate repeatedly. */
+    private final boolean sharesNodes;
+    private volatile ExpressionProgram program;
+    /** Generated bytecode for this expression, once it has been translated. */
+    private volatile ExpressionClassGenerator.Evaluator generated;
+    /**
+     * Evaluations so far, counted until COMPILE_THRESHOLD. Updates may race and be lost,
+     * which only delays translation slightly.
+     */
+    private int invocations;
+
+    CompiledExpression(Node root, String[] variables) {
+        this(root, variables, -1, false);
+    }
+
+    CompiledExpression(Node root, String[] variables, int sourceNodeCount, boolean sharesNodes) {
+        this.root = root;
+        this.variables = variables;
+        this.sourceNodeCount = sourceNodeCount;
+        this.sharesNodes = sharesNodes;
+    }
+
+    /**
+     * Returns the names of the variables used by this expression in slot order.
+     * 
+     * @return an unmodifiable list of variable names, empty if the expression has none
+     */
+    public List<String> variables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * Evaluates an expression that has no variables.
+     * 
+     * @return the value of the expression as a double
+     * @throws ArithmeticException if division by zero is encountered
+     * @throws IllegalStateException if the expression refers to variables
+     * 
+     * Preconditions:
+     * - None; the tree was validated when it was compiled.
+     * 
+     * Postconditions:
+     * - Returns the same value every time it is called.
+     * - No strings or other objects are created during evaluation. Trees deeper than
+     *   MAX_RECURSIVE_DEPTH and trees with shared nodes run on a scratch array that is
+     *   allocated once per thread and reused.
+     */
+    public double evaluate() {
+        if (variables.length != 0) {
+            throw new IllegalStateException("Expression refers to variables " + variables());
+        }
+        return evaluateChecked(NO_VALUES);
+    }
+
+    /**
+     * Evaluates the expression with the given variable values.
+     * 
+     * @param values the value of each variable, in the order given by {@link #variables()}
+     * @return the value of the expression as a double
+     * @throws ArithmeticException if division by zero is encountered
+     * @throws IllegalArgumentException if fewer values than variables are given
+     * 
+     * Preconditions:
+     * - values.length is at least the number of variables.
+     * 
+     * Postconditions:
+     * - No strings or other objects are created during evaluation. Trees deeper than
+     *   MAX_RECURSIVE_DEPTH and trees with shared nodes run on a scratch array that is
+     *   allocated once per thread and reused.
+     */
+    public double evaluate(double[] values) {
+        checkArity(values.length);
+        return evaluateChecked(values);
+    }
+
+    /**
+     * Evaluates the expression once per row over columns of variable values.
+     * Each operator is applied to a block of rows in a tight loop, instead of
+     * walking the tree once per row.
+     * 
+     * @param columns one column per variable, in the order given by {@link #variables()}
+     * @param out receives the result of each row; its length is the number of rows
+     * @throws ArithmeticException if any row divides by zero
+     * @throws IllegalArgumentException if a column is missing or shorter than out
+     * 
+     * Preconditions:
+     * - Every column holds at least out.length values.
+     * 
+     * Postconditions:
+     * - out[row] equals evaluate(the values at row) for every row.
+     * - If an exception is thrown, the contents of out are unspecified.
+     */
+    public void evaluate(double[][] columns, double[] out) {
+        checkColumns(columns, out.length);
+        program().evaluate(columns, out, null);
+    }
+
+    /**
+     * Evaluates the expression over columns, recording division by zero per row
+     * instead of throwing.
+     * 
+     * @param columns one column per variable, in the order given by {@link #variables()}
+     * @param out receives the result of each row; its length is the number of rows
+     * @param errors receives true for each row that divided by zero, false otherwise
+     * @throws IllegalArgumentException if a column or the error mask is shorter than out
+     * 
+     * Preconditions:
+     * - Every column and the error mask hold at least out.length values.
+     * 
+     * Postconditions:
+     * - Rows without errors hold the same value as evaluate(the values at row).
+     * - Rows that divided by zero are marked in errors and hold NaN in out.
+     */
+    public void evaluate(double[][] columns, double[] out, boolean[] errors) {
+        checkColumns(columns, out.length);
+        if (errors.length < out.length) {
+            throw new IllegalArgumentException("Error mask has " + errors.length + " rows, expected " + out.length);
+        }
+        Arrays.fill(errors, 0, out.length, false);
+        program().evaluate(columns, out, errors);
+    }
+
+    /**
+     * Evaluates the expression over columns looked up by variable name.
+     * 
+     * @param columns the column of values for each variable name
+     * @param out receives the result of each row; its length is the number of rows
+     * @throws ArithmeticException if any row divides by zero
+     * @throws IllegalArgumentException if a variable has no column or a column is too short
+     */
+    public void evaluate(Map<String, double[]> columns, double[] out) {
+        double[][] ordered = new double[variables.length][];
+        for (int i = 0; i < variables.length; i++) {
+            ordered[i] = columns.get(variables[i]);
+        }
+        evaluate(ordered, out);
+    }
+
+    /**
+     * Returns an equivalent expression simplified for repeated evaluation.
+     * Constant subtrees are computed once now, identity operations such as *1 and +0
+     * are removed, and repeated subexpressions such as the two halves of
+     * "(x*3+2)*(x*3+2)" are merged so that they are evaluated only once.
+     * 
+     * @return the optimized expression, with the same variables in the same slots
+     * 
+     * Postconditions:
+     * - The result evaluates to the same value as this expression for every input,
+     *   except that removing +0 may turn a result of 0.0 into -0.0.
+     * - Division by a constant zero is kept, so it is still reported on evaluation.
+     */
+    public CompiledExpression optimize() {
+        return ExpressionOptimizer.optimize(this);
+    }
+
+    /**
+     * Returns the number of distinct nodes; a subexpression shared after optimization
+     * counts once.
+     * 
+     * @return the number of instructions executed per evaluation
+     */
+    public int nodeCount() {
+        return program().opcodes.length;
+    }
+
+    /**
+     * Returns a listing of the instructions of this expression, one per line, headed by
+     * the node count and, for optimized expressions, the node count before optimization.
+     * Intended for debugging.
+     * 
+     * @return a human-readable description of the expression
+     */
+    public String dump() {
+        ExpressionProgram instructions = program();
+        StringBuilder dump = new StringBuilder("nodes: ").append(nodeCount());
+        if (sourceNodeCount >= 0) {
+            dump.append(" (before optimization: ").append(sourceNodeCount).append(')');
+        }
+        dump.append(", variables: ").append(variables()).append('\n');
+        for (int i = 0; i < instructions.opcodes.length; i++) {
+            dump.append("  t").append(i).append(" = ");
+            switch (instructions.opcodes[i]) {
+                case ExpressionProgram.CONSTANT:
+                    dump.append(instructions.constants[i]);
+                    break;
+                case ExpressionProgram.VARIABLE:
+                    dump.append(variables[instructions.lefts[i]]);
+                    break;
+                default:
+                    dump.append('t').append(instructions.lefts[i]).append(' ')
+                            .append(ExpressionProgram.operator(instructions.opcodes[i]))
+                            .append(" t").append(instructions.rights[i]);
+                    break;
+            }
+            dump.append('\n');
+        }
+        return dump.toString();
+    }
+
+    /**
+     * Translates this expression to bytecode now instead of waiting for it to become hot.
+     * Later evaluations run the generated code, which HotSpot compiles like hand-written
+     * arithmetic. Expressions too large to benefit keep using the interpreter.
+     * 
+     * @return true if generated code is in use, false if the expression is interpreted
+     */
+    public boolean generateBytecode() {
+        if (generated == null) {
+            try {
+                generated = ExpressionClassGenerator.generate(this);
+            } catch (RuntimeException | LinkageError e) {
+                // Keep interpreting; the result is the same, only slower
+            }
+        }
+        invocations = Integer.MAX_VALUE;
+        return generated != null;
+    }
+
+    boolean usesGeneratedCode() {
+        return generated != null;
+    }
+
+    int sourceNodeCount() {
+        return sourceNodeCount >= 0 ? sourceNodeCount : nodeCount();
+    }
+
+    boolean sharesNodes() {
+        return sharesNodes;
+    }
+
+    String[] variableArray() {
+        return variables;
+    }
+
+    private double evaluateChecked(double[] values) {
+        ExpressionClassGenerator.Evaluator code = generated;
+        if (code != null) {
+            return code.evaluate(values);
+        }
+        if (invocations < COMPILE_THRESHOLD && ++invocations == COMPILE_THRESHOLD) {
+            generateBytecode();
+        }
+        if (!sharesNodes && root.depth <= MAX_RECURSIVE_DEPTH) {
+            return root.evaluate(values);
+        }
+        return program().evaluate(values);
+    }
+
+    private ExpressionProgram program() {
+        ExpressionProgram result = program;
+        if (result == null) {
+            // Racing threads may both build it; the program is immutable so either copy is fine
+            result = new ExpressionProgram(root);
+            program = result;
+        }
+        return result;
+    }
+
+    private void checkArity(int count) {
+        if (count < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values for " + variables() + ", got " + count);
+        }
+    }
+
+    private void checkColumns(double[][] columns, int rows) {
+        checkArity(columns.length);
+        for (int i = 0; i < variables.length; i++) {
+            if (columns[i] == null) {
+                throw new IllegalArgumentException("No column for variable " + variables[i]);
+            }
+            if (columns[i].length < rows) {
+                throw new IllegalArgumentException("Column " + variables[i] + " has " + columns[i].length + " rows, expected " + rows);
+            }
+        }
+    }
+
+    /**
+     * Applies a binary operator to two values.
+     * 
+     * @param operator one of +, -, * or /
+     * @param left the left operand
+     * @param right the right operand
+     * @return the result of the operation
+     * @throws ArithmeticException if operator is / and right is zero
+     */
+    static double apply(char operator, double left, double right) {
+        switch (operator) {
+            case '+':
+                return left + right;
+            case '-':
+                return left - right;
+            case '*':
+                return left * right;
+            case '/':
+                if (right == 0) {
+                    throw new ArithmeticException("Division by zero");
+                }
+                return left / right;
+            default:
+                throw new IllegalStateException("Unknown operator: " + operator);
+        }
+    }
+
+    /**
+     * A node of the expression tree.
+     */
+    abstract static class Node {
+
+        /** Number of nodes on the longest path from this node to a leaf, counting both. */
+        final int depth;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Evaluates the sub-tree rooted at this node.
+         * 
+         * @param values the value of each variable, indexed by slot
+         * @return the value of the sub-tree
+         * @throws ArithmeticException if division by zero is encountered
+         */
+        abstract double evaluate(double[] values);
+    }
+
+    /**
+     * A leaf of the tree holding a numeric literal.
+     */
+    static final class Number extends Node {
+        final double value;
+
+        Number(double value) {
+            super(1);
+            this.value = value;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return value;
+        }
+    }
+
+    /**
+     * A leaf of the tree referring to a variable by its slot.
+     */
+    static final class Variable extends Node {
+        final int slot;
+
+        Variable(int slot) {
+            super(1);
+            this.slot = slot;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return values[slot];
+        }
+    }
+
+    /**
+     * An inner node applying one of +, -, * or / to two sub-expressions.
+     */
+    static final class BinaryOperation extends Node {
+        final char operator;
+        final Node left;
+        final Node right;
+
+        BinaryOperation(char operator, Node left, Node right) {
+            super(1 + Math.max(left.depth, right.depth));
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double[] values) {
+            return apply(operator, left.evaluate(values), right.evaluate(values));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.Map;
+
+public class CompiledExpressionTest {
+
+    @Test
+    void testVariables_orderOfFirstAppearance() {
+        CompiledExpression expression = RecursiveMathParser.compile("b * a + b / c");
+        assertEquals(List.of("b", "a", "c"), expression.variables());
+    }
+
+    @Test
+    void testEvaluate_withValues() {
+        CompiledExpression expression = RecursiveMathParser.compile("a*b+c/2");
+        assertEquals(10, expression.evaluate(new double[] {2, 3, 8}));
+    }
+
+    @Test
+    void testEvaluate_missingValues() {
+        CompiledExpression expression = RecursiveMathParser.compile("x + y");
+        assertThrows(IllegalStateException.class, expression::evaluate);
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(new double[] {1}));
+    }
+
+    @Test
+    void testEvaluateColumns_matchesRowByRow() {
+        CompiledExpression expression = RecursiveMathParser.compile("a*b+c/2-(a-3)*(b+c)");
+        int rows = 5000; // more than one block
+        double[] a = new double[rows];
+        double[] b = new double[rows];
+        double[] c = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            a[i] = i * 0.5;
+            b[i] = rows - i;
+            c[i] = i % 7 + 1;
+        }
+        double[] out = new double[rows];
+        expression.evaluate(new double[][] {a, b, c}, out);
+        for (int i = 0; i < rows; i++) {
+            assertEquals(expression.evaluate(new double[] {a[i], b[i], c[i]}), out[i]);
+        }
+    }
+
+    @Test
+    void testEvaluateColumns_byName() {
+        double[] out = new double[3];
+        RecursiveMathParser.evaluateExpression("price * quantity",
+                Map.of("price", new double[] {1.5, 2, 4}, "quantity", new double[] {2, 3, 0.25}), out);
+        assertArrayEquals(new double[] {3, 6, 1}, out);
+    }
+
+    @Test
+    void testEvaluateColumns_constantAndVariableRoots() {
+        double[] out = new double[2];
+        RecursiveMathParser.compile("(4)").evaluate(new double[0][], out);
+        assertArrayEquals(new double[] {4, 4}, out);
+        RecursiveMathParser.compile("x").evaluate(new double[][] {{7, 8}}, out);
+        assertArrayEquals(new double[] {7, 8}, out);
+    }
+
+    @Test
+    void testEvaluateColumns_divisionByZeroThrows() {
+        CompiledExpression expression = RecursiveMathParser.compile("a / b");
+        double[] out = new double[3];
+        assertThrows(ArithmeticException.class,
+                () -> expression.evaluate(new double[][] {{1, 2, 3}, {1, 0, 1}}, out));
+    }
+
+    @Test
+    void testEvaluateColumns_divisionByZeroMask() {
+        CompiledExpression expression = RecursiveMathParser.compile("1 + a / b * 2");
+        double[] out = new double[3];
+        boolean[] errors = new boolean[3];
+        expression.evaluate(new double[][] {{1, 2, 3}, {1, 0, 3}}, out, errors);
+        assertArrayEquals(new boolean[] {false, true, false}, errors);
+        assertEquals(3, out[0]);
+        assertTrue(Double.isNaN(out[1]));
+        assertEquals(3, out[2]);
+    }
+
+    @Test
+    void testEvaluateColumns_shortColumn() {
+        CompiledExpression expression = RecursiveMathParser.compile("a + 1");
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(new double[][] {{1}}, new double[2]));
+    }
+
+    @Test
+    void testEvaluate_deepTreeMatchesShallowEvaluation() {
+        int steps = 20000;
+        StringBuilder source = new StringBuilder("(".repeat(steps)).append('x');
+        double expected = 2;
+        for (int i = 1; i <= steps; i++) {
+            source.append(i % 2 == 0 ? "*1.0001)" : "-x/4)");
+            expected = i % 2 == 0 ? expected * 1.0001 : expected - 2.0 / 4;
+        }
+        CompiledExpression expression = RecursiveMathParser.compile(source.toString());
+        assertEquals(expected, expression.evaluate(new double[] {2}));
+        double[] out = new double[3];
+        expression.evaluate(new double[][] {{2, 2, 2}}, out);
+        assertArrayEquals(new double[] {expected, expected, expected}, out);
+    }
+
+    @Test
+    void testEvaluate_deepTreeDivisionByZero() {
+        CompiledExpression expression = RecursiveMathParser.compile("1" + "+1".repeat(1000) + "/x");
+        assertThrows(ArithmeticException.class, () -> expression.evaluate(new double[] {0}));
+    }
+}
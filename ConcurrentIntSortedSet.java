@@ -0,0 +1,264 @@
+package com.amfk.lab12;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A sorted set of primitive ints that can be searched while it is being updated, for key sets
+ * that change too often to rebuild a sorted array for {@link RecursiveBinarySearch}.
+ * 
+ * The set is a skip list. Updates take a lock, so writers run one at a time, but reads never
+ * lock and never wait: a writer fills in a new node completely before it publishes the node
+ * with a release store, from the bottom level up, and a removed node is only flagged and
+ * unlinked, keeping its own links so that a reader standing on it walks on to live nodes.
+ * Reads are therefore unaffected by writers apart from cache traffic.
+ * 
+ * Iterators are weakly consistent, like those of java.util.concurrent: they never throw
+ * ConcurrentModificationException, return keys in ascending order, and reflect some of the
+ * updates made after they were created.
+ */
+public final class ConcurrentIntSortedSet {
+
+    /** Levels of the skip list; with a 1/4 chance of promotion they serve over 4 billion keys. */
+    static final int MAX_LEVEL = 16;
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+
+    private final Node head = new Node(Integer.MIN_VALUE, MAX_LEVEL);
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile int size;
+    /** xorshift state for node levels, only used under the write lock. */
+    private int seed = 0x2545F491;
+
+    private static final class Node {
+        final int key;
+        final Node[] next;
+        volatile boolean removed;
+
+        Node(int key, int levels) {
+            this.key = key;
+            this.next = new Node[levels];
+        }
+
+        Node next(int level) {
+            return (Node) NEXT.getAcquire(next, level);
+        }
+    }
+
+    /** @return the number of keys in the set */
+    public int size() {
+        return size;
+    }
+
+    /** @return true if the set has no keys */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key the key to look for
+     * @return true if key is in the set
+     */
+    public boolean contains(int key) {
+        Node node = firstAtLeast(key);
+        return node != null && node.key == key;
+    }
+
+    /**
+     * Returns the keys not less than a target, in ascending order: the set's counterpart of
+     * {@link RecursiveBinarySearch#lowerBound(int[], int)}, whose first key is the one at the
+     * lower bound.
+     * 
+     * @param key the target
+     * @return an iterator over the keys >= key
+     */
+    public PrimitiveIterator.OfInt lowerBound(int key) {
+        return new RangeIterator(firstAtLeast(key), Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Returns the keys greater than a target, in ascending order: the set's counterpart of
+     * {@link RecursiveBinarySearch#upperBound(int[], int)}.
+     * 
+     * @param key the target
+     * @return an iterator over the keys > key
+     */
+    public PrimitiveIterator.OfInt upperBound(int key) {
+        return key == Integer.MAX_VALUE ? new RangeIterator(null, key, false) : lowerBound(key + 1);
+    }
+
+    /**
+     * Returns the keys of a half-open range [from, to), in ascending order.
+     * 
+     * @param from the smallest key to include
+     * @param to one more than the largest key to include
+     * @return an iterator over the keys k with from <= k < to
+     */
+    public PrimitiveIterator.OfInt range(int from, int to) {
+        return new RangeIterator(firstAtLeast(from), to, false);
+    }
+
+    /** @return the keys in ascending order, as seen by one pass over the set */
+    public int[] toArray() {
+        IntList keys = new IntList(size);
+        PrimitiveIterator.OfInt iterator = lowerBound(Integer.MIN_VALUE);
+        while (iterator.hasNext()) {
+            keys.add(iterator.nextInt());
+        }
+        return keys.toArray();
+    }
+
+    /**
+     * Adds a key. Blocks other writers, but not readers.
+     * 
+     * @param key the key to add
+     * @return true if the key was added, false if it was already present
+     */
+    public boolean add(int key) {
+        Node[] preds = new Node[MAX_LEVEL];
+        writeLock.lock();
+        try {
+            Node found = findPredecessors(key, preds);
+            if (found != null && found.key == key) {
+                return false;
+            }
+            Node node = new Node(key, randomLevels());
+            for (int level = 0; level < node.next.length; level++) {
+                node.next[level] = preds[level].next[level];
+            }
+            // Publish bottom-up: once a reader can reach the node, all its links are in place
+            for (int level = 0; level < node.next.length; level++) {
+                NEXT.setRelease(preds[level].next, level, node);
+            }
+            size++;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a key. Blocks other writers, but not readers.
+     * 
+     * @param key the key to remove
+     * @return true if the key was removed, false if it was not present
+     */
+    public boolean remove(int key) {
+        Node[] preds = new Node[MAX_LEVEL];
+        writeLock.lock();
+        try {
+            Node node = findPredecessors(key, preds);
+            if (node == null || node.key != key) {
+                return false;
+            }
+            node.removed = true;
+            // Unlink top-down, so the node stays reachable at level 0 until it has left every level
+            for (int level = node.next.length - 1; level >= 0; level--) {
+                NEXT.setRelease(preds[level].next, level, node.next[level]);
+            }
+            size--;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Records the last node before key at every level. Only called under the write lock, when the
+     * list holds no removed nodes.
+     * 
+     * @return the first node >= key, or null if there is none
+     */
+    private Node findPredecessors(int key, Node[] preds) {
+        Node node = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            Node next = node.next[level];
+            while (next != null && next.key < key) {
+                node = next;
+                next = node.next[level];
+            }
+            preds[level] = node;
+        }
+        return node.next[0];
+    }
+
+    /** Finds the first live node whose key is not less than key, or null. */
+    private Node firstAtLeast(int key) {
+        Node node = head;
+        Node candidate = null;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            candidate = node.next(level);
+            while (candidate != null && candidate.key < key) {
+                node = candidate;
+                candidate = node.next(level);
+            }
+        }
+        // Keep the successor checked at level 0 rather than reading the link again: a node
+        // inserted in the meantime could be smaller than key
+        while (candidate != null && candidate.removed) {
+            candidate = candidate.next(0);
+        }
+        return candidate;
+    }
+
+    /** Draws a level count with a 1/4 chance of each promotion. */
+    private int randomLevels() {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        int levels = 1;
+        while ((x & 3) == 0 && levels < MAX_LEVEL) {
+            levels++;
+            x >>>= 2;
+        }
+        return levels;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /** Walks level 0 from a node, skipping removed nodes, up to an exclusive bound. */
+    private static final class RangeIterator implements PrimitiveIterator.OfInt {
+        private final int to;
+        private final boolean unbounded;
+        private Node next;
+        /** True once next has been checked; it is then returned even if removed meanwhile. */
+        private boolean checked;
+
+        RangeIterator(Node first, int to, boolean unbounded) {
+            this.to = to;
+            this.unbounded = unbounded;
+            this.next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!checked) {
+                while (next != null && next.removed) {
+                    next = next.next(0);
+                }
+                checked = true;
+            }
+            return next != null && (unbounded || next.key < to);
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int key = next.key;
+            next = next.next(0);
+            checked = false;
+            return key;
+        }
+    }
+}
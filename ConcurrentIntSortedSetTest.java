@@ -0,0 +1,120 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentIntSortedSetTest {
+
+    private static IntList drain(PrimitiveIterator.OfInt iterator) {
+        IntList keys = new IntList();
+        while (iterator.hasNext()) {
+            keys.add(iterator.nextInt());
+        }
+        return keys;
+    }
+
+    private static IntList toIntList(Iterable<Integer> keys) {
+        IntList list = new IntList();
+        for (int key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    @Test
+    void testMatchesTreeSet() {
+        ConcurrentIntSortedSet set = new ConcurrentIntSortedSet();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(21);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        assertArrayEquals(toIntList(expected).toArray(), set.toArray());
+        for (int key = -1010; key <= 1010; key += 7) {
+            assertEquals(expected.contains(key), set.contains(key));
+            assertEquals(toIntList(expected.tailSet(key, true)), drain(set.lowerBound(key)));
+            assertEquals(toIntList(expected.tailSet(key, false)), drain(set.upperBound(key)));
+            assertEquals(toIntList(expected.subSet(key, true, key + 50, false)), drain(set.range(key, key + 50)));
+        }
+    }
+
+    @Test
+    void testExtremeKeysAndEmptySet() {
+        ConcurrentIntSortedSet set = new ConcurrentIntSortedSet();
+        assertTrue(set.isEmpty());
+        assertFalse(set.lowerBound(0).hasNext());
+        assertThrows(NoSuchElementException.class, () -> set.lowerBound(0).nextInt());
+        assertFalse(set.remove(3));
+        assertTrue(set.add(Integer.MAX_VALUE));
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertFalse(set.add(Integer.MIN_VALUE));
+        assertTrue(set.contains(Integer.MIN_VALUE));
+        assertEquals("[-2147483648, 2147483647]", set.toString());
+        assertFalse(set.upperBound(Integer.MAX_VALUE).hasNext());
+        assertEquals(Integer.MAX_VALUE, set.upperBound(Integer.MIN_VALUE).nextInt());
+        assertFalse(set.range(Integer.MIN_VALUE, Integer.MIN_VALUE).hasNext());
+    }
+
+    @Test
+    void testReadersSeeStableKeysDuringUpdates() throws InterruptedException {
+        ConcurrentIntSortedSet set = new ConcurrentIntSortedSet();
+        // Even keys stay in the set throughout; odd keys come and go
+        for (int key = 0; key < 10_000; key += 2) {
+            set.add(key);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(22);
+            for (int i = 0; i < 200_000; i++) {
+                int key = 2 * random.nextInt(5000) + 1;
+                if (random.nextBoolean()) {
+                    set.add(key);
+                } else {
+                    set.remove(key);
+                }
+            }
+        });
+        Thread reader = new Thread(() -> {
+            try {
+                Random random = new Random(23);
+                while (writer.isAlive()) {
+                    int key = 2 * random.nextInt(5000);
+                    assertTrue(set.contains(key), "missing " + key);
+                    PrimitiveIterator.OfInt iterator = set.range(key, key + 40);
+                    int previous = key - 1;
+                    int evens = 0;
+                    while (iterator.hasNext()) {
+                        int next = iterator.nextInt();
+                        assertTrue(next > previous, "out of order");
+                        previous = next;
+                        evens += next % 2 == 0 ? 1 : 0;
+                    }
+                    assertEquals(Math.min(20, (10_000 - key) / 2), evens);
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertNull(failure.get());
+        int[] keys = set.toArray();
+        assertEquals(set.size(), keys.length);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] < keys[i]);
+        }
+    }
+}
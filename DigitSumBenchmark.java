@@ -0,0 +1,63 @@
+package com.amfk.lab12;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the throughput of the digit-sum kernels of {@link RecursiveSumDigits}: the scalar
+ * method called in a loop, the bulk array method on one thread, and the bulk method split
+ * across the common fork-join pool.
+ */
+public final class DigitSumBenchmark {
+
+    private DigitSumBenchmark() {
+    }
+
+    /**
+     * Runs each kernel a few times over random ints and prints millions of numbers per second.
+     * 
+     * @param args optionally the array size, 20 million by default, and the number of rounds, 5 by default
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int[] in = new int[size];
+        Random random = new Random(24);
+        for (int i = 0; i < size; i++) {
+            in[i] = random.nextInt();
+        }
+        int[] out = new int[size];
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            long check = 0;
+            for (int i = 0; i < size; i++) {
+                out[i] = RecursiveSumDigits.sumOfDigits(in[i]);
+                check += out[i];
+            }
+            long scalar = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            RecursiveSumDigits.sumOfDigits(in, out, pool, size);
+            long bulk = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            RecursiveSumDigits.sumOfDigits(in, out);
+            long parallel = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long total = RecursiveSumDigits.totalSumOfDigits(in);
+            long reduce = System.nanoTime() - start;
+            if (total != check) {
+                throw new AssertionError("Kernels disagree: " + total + " != " + check);
+            }
+            System.out.printf("round %d: scalar loop %.0f M/s, bulk %.0f M/s, parallel bulk %.0f M/s, "
+                    + "parallel total %.0f M/s (%d threads)%n", round, rate(size, scalar), rate(size, bulk),
+                    rate(size, parallel), rate(size, reduce), pool.getParallelism());
+        }
+    }
+
+    private static double rate(int count, long nanos) {
+        return count * 1000.0 / nanos;
+    }
+}
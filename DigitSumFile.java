@@ -0,0 +1,366 @@
+package com.amfk.lab12;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Digit sums and digital roots of decimal numbers stored as text in files too large to read
+ * into the heap, such as a single number with billions of digits.
+ * 
+ * The file is memory-mapped and its bytes are summed directly, without decoding them into
+ * characters. Eight bytes are read at a time as one long; when all eight are digits, which
+ * is almost always the case inside a number, they are checked and summed with a few
+ * arithmetic operations instead of eight branches. Each mapped segment is split into chunks
+ * that are summed in parallel on a fork-join pool and the partial sums are added up.
+ * 
+ * When summing a whole file, ASCII whitespace and the signs '+' and '-' are skipped, so a
+ * number may be wrapped over many lines. Any other byte is rejected. When writing one digit
+ * sum per line, each line must hold a single number: an optional sign followed by digits,
+ * with optional whitespace around them.
+ */
+public final class DigitSumFile {
+
+    /** Default number of bytes summed by one task. */
+    static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+    /** Bytes mapped at a time when summing a whole file. */
+    static final long SEGMENT_BYTES = 1 << 30;
+
+    /** Prefix of the output line written for a line that is not a number. */
+    static final String ERROR_PREFIX = "error: ";
+
+    /** The byte '0' repeated in every byte of a long. */
+    private static final long ZEROS = 0x3030303030303030L;
+    /** The byte 1 repeated in every byte of a long; multiplying by it sums the bytes into the top one. */
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+
+    private DigitSumFile() {
+    }
+
+    /**
+     * Computes the sum of every decimal digit in a file on the common fork-join pool.
+     * 
+     * @param input a file of decimal digits in ASCII, possibly with whitespace and signs
+     * @return the sum of the digits in the file, 0 for an empty file
+     * @throws IOException if the file cannot be read
+     * @throws NumberFormatException if the file holds a byte that is not a digit, whitespace
+     *         or a sign; the message gives its offset
+     * 
+     * Postconditions:
+     * - For a file holding one number, the result equals
+     *   RecursiveSumDigits.sumOfDigits(new BigInteger(content.strip())).
+     * 
+     * Example:
+     * - A file holding "12345\n" returns 15.
+     */
+    public static long sumOfDigits(Path input) throws IOException {
+        return sumOfDigits(input, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Computes the sum of every decimal digit in a file on the given pool.
+     * 
+     * @param input a file of decimal digits in ASCII, possibly with whitespace and signs
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkBytes the number of bytes summed by one task
+     * @return the sum of the digits in the file, 0 for an empty file
+     * @throws IOException if the file cannot be read
+     * @throws NumberFormatException if the file holds a byte that is not a digit, whitespace
+     *         or a sign
+     * @throws IllegalArgumentException if chunkBytes is not positive
+     */
+    public static long sumOfDigits(Path input, ForkJoinPool pool, int chunkBytes) throws IOException {
+        return sumOfDigits(input, pool, chunkBytes, SEGMENT_BYTES);
+    }
+
+    /**
+     * Computes the sum of every decimal digit in a file, mapping it segmentBytes at a time.
+     * Small segments let tests cover files of several segments.
+     */
+    static long sumOfDigits(Path input, ForkJoinPool pool, int chunkBytes, long segmentBytes) throws IOException {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+        }
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long start = 0; start < size; start += segmentBytes) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(segmentBytes, size - start));
+                // The order of the bytes in a word does not change their sum
+                segment.order(ByteOrder.nativeOrder());
+                long sum = pool.invoke(new SumTask(segment, 0, segment.limit(), chunkBytes, false));
+                if (sum < 0) {
+                    int index = (int) (-1 - sum);
+                    throw invalidByte(segment.get(index), "offset " + (start + index));
+                }
+                total += sum;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Computes the digital root of the number held in a file: its digits are summed
+     * repeatedly until a single digit is left.
+     * 
+     * @param input a file of decimal digits in ASCII, possibly with whitespace and signs
+     * @return the digital root of the digits in the file, from 0 to 9
+     * @throws IOException if the file cannot be read
+     * @throws NumberFormatException if the file holds a byte that is not a digit, whitespace
+     *         or a sign
+     * 
+     * Example:
+     * - A file holding "12345" returns 6 (12345 -> 15 -> 6).
+     */
+    public static int digitalRoot(Path input) throws IOException {
+        return digitalRoot(sumOfDigits(input));
+    }
+
+    /**
+     * Computes the digital root of any number whose digits sum to digitSum. A number and its
+     * digit sum have the same digital root, which is 0 for 0 and otherwise the remainder
+     * modulo 9, with 9 in place of 0.
+     * 
+     * @param digitSum a digit sum, such as a result of {@link #sumOfDigits(Path)}
+     * @return the digital root, from 0 to 9
+     * @throws IllegalArgumentException if digitSum is negative
+     */
+    public static int digitalRoot(long digitSum) {
+        if (digitSum < 0) {
+            throw new IllegalArgumentException("Digit sum must not be negative: " + digitSum);
+        }
+        return digitSum == 0 ? 0 : (int) (1 + (digitSum - 1) % 9);
+    }
+
+    /**
+     * Writes the digit sum of every line of a file to another file, on the common fork-join
+     * pool.
+     * 
+     * @param input a file of decimal numbers in ASCII, one per line
+     * @param output the file to create or replace with the digit sums
+     * @return the number of lines read
+     * @throws IOException if a file cannot be read or written
+     * 
+     * Postconditions:
+     * - Line i of output holds the digit sum of line i of input in decimal, or "error: " and
+     *   a message if the line is not an optional sign followed by digits, with optional
+     *   whitespace around them.
+     * - Blank input lines produce blank output lines.
+     */
+    public static long writeDigitSums(Path input, Path output) throws IOException {
+        return writeDigitSums(input, output, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Writes the digit sum of every line of a file to another file, on the given pool.
+     * 
+     * The input is mapped in line-aligned chunks that are summed in parallel, and the results
+     * are written in input order as each chunk completes, with a bounded number of chunks in
+     * flight, as in {@link ExpressionFileEvaluator}. A line longer than chunkBytes is itself
+     * split across the pool.
+     * 
+     * @param input a file of decimal numbers in ASCII, one per line
+     * @param output the file to create or replace with the digit sums
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkBytes the approximate number of input bytes summed by one task
+     * @return the number of lines read
+     * @throws IOException if a file cannot be read or written
+     * @throws IllegalArgumentException if chunkBytes is not positive
+     */
+    public static long writeDigitSums(Path input, Path output, ForkJoinPool pool, int chunkBytes) throws IOException {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+        }
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+                OutputStream out = Files.newOutputStream(output)) {
+            long size = channel.size();
+            ArrayDeque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            long start = 0;
+            while (start < size || !inFlight.isEmpty()) {
+                if (start < size && inFlight.size() < maxInFlight) {
+                    long end = LineChunks.chunkEnd(channel, start, chunkBytes, size);
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    inFlight.add(pool.submit(new LineTask(chunk, chunkBytes)));
+                    start = end;
+                } else {
+                    ChunkResult result = inFlight.poll().join();
+                    result.output.writeTo(out);
+                    lines += result.lines;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Sums the digits of buffer[from, to), skipping whitespace and signs unless digitsOnly is set.
+     * 
+     * A long of eight bytes holds only digits when every byte has the high nibble 3 and still
+     * has it after adding 6, which excludes ':' to '?'; both checks run on all eight bytes at
+     * once. Subtracting '0' from each byte then leaves values of at most 9, and multiplying by
+     * 0x0101010101010101 adds all eight into the top byte without carries.
+     * 
+     * @return the sum of the digits, or -1 - i for the index i of the first invalid byte
+     */
+    static long sumDigits(ByteBuffer buffer, int from, int to, boolean digitsOnly) {
+        long sum = 0;
+        int i = from;
+        while (i < to) {
+            while (i <= to - Long.BYTES) {
+                long word = buffer.getLong(i);
+                if (((word & HIGH_NIBBLES) | (((word + 0x0606060606060606L) & HIGH_NIBBLES) >>> 4)) != 0x3333333333333333L) {
+                    break;
+                }
+                sum += ((word - ZEROS) * ONES) >>> 56;
+                i += Long.BYTES;
+            }
+            if (i == to) {
+                break;
+            }
+            // A word with a non-digit in it: take one byte and try a whole word again after it
+            int b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                sum += b - '0';
+            } else if (digitsOnly || !(isWhitespace(b) || b == '+' || b == '-')) {
+                return -1 - i;
+            }
+            i++;
+        }
+        return sum;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == '\n' || b == '\r' || b == ' ' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+
+    private static NumberFormatException invalidByte(byte b, String where) {
+        String shown = b >= 0x20 && b < 0x7F ? "'" + (char) b + "'" : String.format("0x%02X", b & 0xFF);
+        return new NumberFormatException("Invalid character " + shown + " at " + where);
+    }
+
+    private static final class ChunkResult {
+        final ByteArrayOutputStream output;
+        final long lines;
+
+        ChunkResult(ByteArrayOutputStream output, long lines) {
+            this.output = output;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Sums every line of one mapped chunk into an in-memory block of output lines.
+     */
+    private static final class LineTask extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final MappedByteBuffer chunk;
+        private final int chunkBytes;
+
+        LineTask(MappedByteBuffer chunk, int chunkBytes) {
+            this.chunk = chunk;
+            this.chunkBytes = chunkBytes;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            chunk.order(ByteOrder.nativeOrder());
+            StringBuilder formatted = new StringBuilder(32);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(chunk.limit() / 4 + 16);
+            long lines = 0;
+            int limit = chunk.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                formatted.setLength(0);
+                // Trim the surrounding whitespace, including a trailing '\r'
+                int first = lineStart;
+                while (first < lineEnd && isWhitespace(chunk.get(first))) {
+                    first++;
+                }
+                int last = lineEnd;
+                while (last > first && isWhitespace(chunk.get(last - 1))) {
+                    last--;
+                }
+                if (first < last) {
+                    int digits = chunk.get(first) == '+' || chunk.get(first) == '-' ? first + 1 : first;
+                    if (digits == last) {
+                        formatted.append(ERROR_PREFIX).append("Expected digits at column ").append(digits - lineStart + 1);
+                    } else {
+                        long sum = last - digits > chunkBytes ? new SumTask(chunk, digits, last, chunkBytes, true).invoke()
+                                : sumDigits(chunk, digits, last, true);
+                        if (sum < 0) {
+                            int index = (int) (-1 - sum);
+                            formatted.append(ERROR_PREFIX)
+                                    .append(invalidByte(chunk.get(index), "column " + (index - lineStart + 1)).getMessage());
+                        } else {
+                            formatted.append(sum);
+                        }
+                    }
+                }
+                for (int i = 0; i < formatted.length(); i++) {
+                    output.write(formatted.charAt(i));
+                }
+                output.write('\n');
+                lines++;
+                lineStart = lineEnd + 1;
+            }
+            return new ChunkResult(output, lines);
+        }
+    }
+
+    /**
+     * Sums a range of a buffer, splitting it in halves while it is larger than one chunk.
+     * Chunks need not start on a line or number boundary, since digits are summed one by one.
+     */
+    private static final class SumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final int chunkBytes;
+        private final boolean digitsOnly;
+
+        SumTask(ByteBuffer buffer, int from, int to, int chunkBytes, boolean digitsOnly) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.chunkBytes = chunkBytes;
+            this.digitsOnly = digitsOnly;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= chunkBytes) {
+                return sumDigits(buffer, from, to, digitsOnly);
+            }
+            int mid = (from + to) >>> 1;
+            SumTask right = new SumTask(buffer, mid, to, chunkBytes, digitsOnly);
+            right.fork();
+            long left = new SumTask(buffer, from, mid, chunkBytes, digitsOnly).compute();
+            long rightSum = right.join();
+            // Report the leftmost invalid byte, as a sequential scan would
+            return left < 0 ? left : rightSum < 0 ? rightSum : left + rightSum;
+        }
+    }
+}
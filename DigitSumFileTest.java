@@ -0,0 +1,147 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class DigitSumFileTest {
+
+    @Test
+    void testSumOfDigits_wrappedNumberAcrossChunksAndSegments() throws IOException {
+        Random random = new Random(25);
+        StringBuilder digits = new StringBuilder("-");
+        for (int i = 0; i < 100_000; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        StringBuilder wrapped = new StringBuilder();
+        for (int i = 0; i < digits.length(); i += 77) {
+            wrapped.append(digits, i, Math.min(digits.length(), i + 77)).append("\r\n");
+        }
+        Path input = Files.createTempFile("digits", ".txt");
+        try {
+            Files.writeString(input, wrapped);
+            long expected = RecursiveSumDigits.sumOfDigits(new BigInteger(digits.toString()));
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                // Odd chunk and segment sizes split words and lines at every possible offset
+                assertEquals(expected, DigitSumFile.sumOfDigits(input, pool, 101, 10_007));
+                assertEquals(expected, DigitSumFile.sumOfDigits(input, pool, 3, 64));
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(expected, DigitSumFile.sumOfDigits(input));
+            assertEquals(new BigInteger(digits.substring(1)).subtract(BigInteger.ONE).mod(BigInteger.valueOf(9)).intValue() + 1,
+                    DigitSumFile.digitalRoot(input));
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    @Test
+    void testSumOfDigits_smallFiles() throws IOException {
+        Path input = Files.createTempFile("digits", ".txt");
+        try {
+            assertEquals(0, DigitSumFile.sumOfDigits(input));
+            assertEquals(0, DigitSumFile.digitalRoot(input));
+            Files.writeString(input, "12345\n");
+            assertEquals(15, DigitSumFile.sumOfDigits(input));
+            assertEquals(6, DigitSumFile.digitalRoot(input));
+            Files.writeString(input, "99999999999999999");
+            assertEquals(153, DigitSumFile.sumOfDigits(input));
+            assertEquals(9, DigitSumFile.digitalRoot(input));
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    @Test
+    void testSumOfDigits_invalidByteReportsFirstOffset() throws IOException {
+        Path input = Files.createTempFile("digits", ".txt");
+        try {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 1000; i++) {
+                content.append("1234567890");
+            }
+            content.setCharAt(5003, 'x');
+            content.setCharAt(8000, '.');
+            Files.writeString(input, content);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                NumberFormatException e = assertThrows(NumberFormatException.class,
+                        () -> DigitSumFile.sumOfDigits(input, pool, 16, 4096));
+                assertEquals("Invalid character 'x' at offset 5003", e.getMessage());
+            } finally {
+                pool.shutdown();
+            }
+            assertThrows(IllegalArgumentException.class, () -> DigitSumFile.sumOfDigits(input, ForkJoinPool.commonPool(), 0));
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    @Test
+    void testDigitalRoot_ofDigitSum() {
+        assertEquals(0, DigitSumFile.digitalRoot(0));
+        assertEquals(1, DigitSumFile.digitalRoot(1));
+        assertEquals(9, DigitSumFile.digitalRoot(9));
+        assertEquals(9, DigitSumFile.digitalRoot(18));
+        assertEquals(1, DigitSumFile.digitalRoot(19));
+        assertEquals(7, DigitSumFile.digitalRoot(Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> DigitSumFile.digitalRoot(-1));
+    }
+
+    @Test
+    void testWriteDigitSums_resultsInInputOrder() throws IOException {
+        Path input = Files.createTempFile("numbers", ".txt");
+        Path output = Files.createTempFile("sums", ".txt");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                lines.add(Integer.toString(i * 7919 - 1_000_000));
+            }
+            // One line longer than a chunk is split across the pool
+            lines.add("9".repeat(1000));
+            Files.write(input, lines);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                assertEquals(5001, DigitSumFile.writeDigitSums(input, output, pool, 64));
+            } finally {
+                pool.shutdown();
+            }
+            List<String> results = Files.readAllLines(output);
+            assertEquals(5001, results.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(Integer.toString(RecursiveSumDigits.sumOfDigits(i * 7919 - 1_000_000)), results.get(i));
+            }
+            assertEquals("9000", results.get(5000));
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    void testWriteDigitSums_errorsAndBlankLines() throws IOException {
+        Path input = Files.createTempFile("numbers", ".txt");
+        Path output = Files.createTempFile("sums", ".txt");
+        try {
+            Files.writeString(input, "12345\r\n000\n\n  \n12a45\n-987\n\t+42 \n12 34\n1-2+3\n-\n +\r\n--5\n-987");
+            assertEquals(13, DigitSumFile.writeDigitSums(input, output));
+            List<String> results = Files.readAllLines(output);
+            assertEquals(List.of("15", "0", "", "", "error: Invalid character 'a' at column 3", "24", "6",
+                    "error: Invalid character ' ' at column 3", "error: Invalid character '-' at column 2",
+                    "error: Expected digits at column 2", "error: Expected digits at column 3",
+                    "error: Invalid character '-' at column 2", "24"), results);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.amfk.lab12;
+
+/**
+ * The outcome of evaluating a batch of expressions, in input order.
+ * Each item either has a value or the exception that stopped its evaluation,
+ * so one bad expression does not hide the results of the others.
+ */
+public final class EvaluationResults {
+
+    private final double[] values;
+    private final RuntimeException[] errors;
+
+    EvaluationResults(double[] values, RuntimeException[] errors) {
+        this.values = values;
+        this.errors = errors;
+    }
+
+    /** @return the number of items in the batch */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value of one item.
+     * 
+     * @param index the position of the item in the input
+     * @return the value of the item, or NaN if its evaluation failed
+     */
+    public double value(int index) {
+        return values[index];
+    }
+
+    /**
+     * Tells whether one item failed.
+     * 
+     * @param index the position of the item in the input
+     * @return true if evaluating the item threw an exception
+     */
+    public boolean failed(int index) {
+        return errors[index] != null;
+    }
+
+    /**
+     * Returns the exception thrown while evaluating one item.
+     * 
+     * @param index the position of the item in the input
+     * @return the exception (e.g. ArithmeticException for division by zero), or null if the item succeeded
+     */
+    public RuntimeException error(int index) {
+        return errors[index];
+    }
+
+    /** @return the number of items that failed */
+    public int failureCount() {
+        int count = 0;
+        for (RuntimeException error : errors) {
+            if (error != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** @return a copy of all values in input order, with NaN for failed items */
+    public double[] values() {
+        return values.clone();
+    }
+}
@@ -0,0 +1,61 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class EvaluationResultsTest {
+
+    @Test
+    void testEvaluateAll_keepsInputOrder() {
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            expressions.add(i + "*2+1");
+        }
+        EvaluationResults results = RecursiveMathParser.evaluateAll(expressions);
+        assertEquals(10000, results.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i * 2 + 1, results.value(i));
+        }
+        assertEquals(0, results.failureCount());
+    }
+
+    @Test
+    void testEvaluateAll_capturesFailuresPerItem() {
+        String[] expressions = {"1+1", "5/0", "3++5", null, "(3+5)*2"};
+        EvaluationResults results = RecursiveMathParser.evaluateAll(expressions);
+        assertEquals(2, results.value(0));
+        assertTrue(results.error(1) instanceof ArithmeticException);
+        assertTrue(results.error(2) instanceof IllegalArgumentException);
+        assertTrue(results.failed(3));
+        assertEquals(16, results.value(4));
+        assertFalse(results.failed(4));
+        assertTrue(Double.isNaN(results.value(1)));
+        assertEquals(3, results.failureCount());
+    }
+
+    @Test
+    void testEvaluateAll_customPoolAndChunkSize() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            String[] expressions = new String[100];
+            Arrays.fill(expressions, "2*3");
+            EvaluationResults results = RecursiveMathParser.evaluateAll(Arrays.asList(expressions), pool, 1);
+            double[] expected = new double[100];
+            Arrays.fill(expected, 6);
+            assertArrayEquals(expected, results.values());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testEvaluateAll_emptyAndInvalidChunkSize() {
+        assertEquals(0, RecursiveMathParser.evaluateAll(new String[0]).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> RecursiveMathParser.evaluateAll(new String[0], ForkJoinPool.commonPool(), 0));
+    }
+}
@@ -0,0 +1,325 @@
+package com.amfk.lab12;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrent, size-bounded cache of compiled expressions keyed by their source text.
+ * Source text is normalized by removing whitespace next to an operator or parenthesis, so
+ * "1 + 2" and "1+2" share an entry. Whitespace between two numbers or names is kept, so
+ * "1 2" is still rejected and "x y" is never read as the variable "xy".
+ * 
+ * The cache is split into independently locked segments, each kept in least-recently-used
+ * order; a lookup only locks the segment its key hashes to, so threads working on
+ * different expressions rarely contend. Eviction is LRU within a segment, which
+ * approximates LRU over the whole cache.
+ */
+public final class ExpressionCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /** Smallest budget of a segment in entries, so uneven hashing rarely evicts early. */
+    private static final int MIN_SEGMENT_ENTRIES = 16;
+
+    /** Smallest budget of a segment in bytes, enough for an expression of about 1900 characters. */
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+
+    /** Estimated fixed cost of an entry: map entry, key object and expression wrapper. */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    /** Estimated cost per source character: the key's chars plus at most one tree node. */
+    private static final int BYTES_PER_CHARACTER = 34;
+
+    private final Segment[] segments;
+    private final boolean weighByBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private ExpressionCache(long maximumWeight, boolean weighByBytes) {
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + maximumWeight);
+        }
+        this.weighByBytes = weighByBytes;
+        // Split the budget only while every segment keeps room for reasonably large entries
+        long minimumSegmentWeight = weighByBytes ? MIN_SEGMENT_BYTES : MIN_SEGMENT_ENTRIES;
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2L * minimumSegmentWeight <= maximumWeight) {
+            count *= 2;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumWeight / count + (i < maximumWeight % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Creates a cache that holds at most the given number of expressions.
+     * 
+     * @param maximumEntries the maximum number of cached expressions, at least 1
+     * @return a new empty cache
+     * @throws IllegalArgumentException if maximumEntries is not positive
+     */
+    public static ExpressionCache withMaximumEntries(int maximumEntries) {
+        return new ExpressionCache(maximumEntries, false);
+    }
+
+    /**
+     * Creates a cache whose entries take at most roughly the given number of bytes.
+     * The size of an entry is estimated from the length of its source text.
+     * 
+     * @param maximumBytes the approximate memory budget of the cache, at least 1
+     * @return a new empty cache
+     * @throws IllegalArgumentException if maximumBytes is not positive
+     */
+    public static ExpressionCache withMaximumBytes(long maximumBytes) {
+        return new ExpressionCache(maximumBytes, true);
+    }
+
+    /**
+     * Returns the compiled form of an expression, compiling and caching it on a miss.
+     * 
+     * @param expression the mathematical expression as a string
+     * @return the compiled expression; the same instance is returned while it stays cached
+     * @throws IllegalArgumentException if the expression is not well-formed; invalid
+     *         expressions are not cached
+     * 
+     * Postconditions:
+     * - Increments the hit or miss counter once.
+     * - May evict the least recently used entries of one segment.
+     * - An entry heavier than the budget of its segment is returned without being cached.
+     */
+    public CompiledExpression get(String expression) {
+        String key = normalize(expression);
+        Segment segment = segmentFor(key);
+        CompiledExpression cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        // Compile outside the lock so a slow parse never blocks other readers of the segment
+        CompiledExpression compiled = RecursiveMathParser.compile(expression);
+        return segment.put(key, compiled, weigh(key));
+    }
+
+    /**
+     * Evaluates an expression using its cached compiled form.
+     * 
+     * @param expression the mathematical expression as a string
+     * @return the result of the evaluated expression as a double
+     * @throws ArithmeticException if division by zero is encountered
+     * @throws IllegalArgumentException if the expression is not well-formed
+     */
+    public double evaluate(String expression) {
+        return get(expression).evaluate();
+    }
+
+    /**
+     * Evaluates many independent expressions in parallel using their cached compiled forms.
+     * 
+     * @param expressions the mathematical expressions to evaluate
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkSize the number of expressions evaluated by one task, at least 1
+     * @return the value or failure of each expression, in input order
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public EvaluationResults evaluateAll(String[] expressions, ForkJoinPool pool, int chunkSize) {
+        return RecursiveMathParser.evaluateAll(expressions, pool, chunkSize, this::evaluate);
+    }
+
+    /** @return the number of lookups that found a cached expression */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /** @return the number of lookups that had to compile the expression */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /** @return the number of entries removed to stay within the capacity */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /** @return the number of cached expressions */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /** @return the total weight of the cached entries, in entries or estimated bytes */
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    /**
+     * Removes every cached expression. Counters are not reset.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionCache[size=" + size() + ", weight=" + weight() + ", hits=" + hitCount()
+                + ", misses=" + missCount() + ", evictions=" + evictionCount() + "]";
+    }
+
+    /**
+     * Builds the cache key of an expression, returning the same string if it has no whitespace.
+     * A run of whitespace is dropped at either end of the text or next to an operator or
+     * parenthesis, where the parser skips it anyway, and is otherwise replaced by one space.
+     * It is also kept between 'e' and a sign, since "1e +5" is rejected but "1e+5" is a number.
+     * Two expressions with the same key therefore parse to the same tree or both fail.
+     */
+    static String normalize(String expression) {
+        int length = expression.length();
+        int i = 0;
+        while (i < length && !Character.isWhitespace(expression.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return expression;
+        }
+        StringBuilder normalized = new StringBuilder(length);
+        normalized.append(expression, 0, i);
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                normalized.append(c);
+                i++;
+                continue;
+            }
+            while (i < length && Character.isWhitespace(expression.charAt(i))) {
+                i++;
+            }
+            if (normalized.length() == 0 || i == length) {
+                continue;
+            }
+            char before = normalized.charAt(normalized.length() - 1);
+            char after = expression.charAt(i);
+            boolean exponentSign = (before == 'e' || before == 'E') && (after == '+' || after == '-');
+            if (exponentSign || (!isOperatorOrParenthesis(before) && !isOperatorOrParenthesis(after))) {
+                normalized.append(' ');
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isOperatorOrParenthesis(char c) {
+        return c == '+' || c == '-' || c == '*' || c == '/' || c == '(' || c == ')';
+    }
+
+    private long weigh(String key) {
+        return weighByBytes ? ENTRY_OVERHEAD_BYTES + (long) BYTES_PER_CHARACTER * key.length() : 1;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * One independently locked part of the cache, holding its entries in access order.
+     */
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maximumWeight;
+        private long weight;
+
+        Segment(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        CompiledExpression get(String key) {
+            lock.lock();
+            try {
+                Entry entry = entries.get(key);
+                return entry == null ? null : entry.expression;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CompiledExpression put(String key, CompiledExpression expression, long entryWeight) {
+            lock.lock();
+            try {
+                Entry existing = entries.get(key);
+                if (existing != null) {
+                    // Another thread compiled the same key first; keep a single shared instance
+                    return existing.expression;
+                }
+                if (entryWeight > maximumWeight) {
+                    // It would only be evicted again at once, along with everything else
+                    return expression;
+                }
+                entries.put(key, new Entry(expression, entryWeight));
+                weight += entryWeight;
+                Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+                while (weight > maximumWeight && eldest.hasNext()) {
+                    weight -= eldest.next().getValue().weight;
+                    eldest.remove();
+                    evictions.increment();
+                }
+                return expression;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long weight() {
+            lock.lock();
+            try {
+                return weight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                entries.clear();
+                weight = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Entry {
+        final CompiledExpression expression;
+        final long weight;
+
+        Entry(CompiledExpression expression, long weight) {
+            this.expression = expression;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExpressionCacheTest {
+
+    @Test
+    void testGet_hitsReturnSameInstance() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(10);
+        CompiledExpression first = cache.get("3+5*2");
+        CompiledExpression second = cache.get("3+5*2");
+        assertSame(first, second);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void testGet_normalizesWhitespace() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(10);
+        assertSame(cache.get("1 + 2"), cache.get("1+2"));
+        assertSame(cache.get(" ( x ) * 2 "), cache.get("(x)*2"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testGet_whitespaceBetweenOperandsStillRejected() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(10);
+        assertThrows(IllegalArgumentException.class, () -> cache.evaluate("1 2"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("x y"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("1e +5"));
+        assertEquals(100000, cache.evaluate("1e+5"));
+        assertEquals("x y", ExpressionCache.normalize(" x \t y "));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testEvaluate() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(10);
+        assertEquals(16, cache.evaluate("(3+5)*2"));
+        assertThrows(ArithmeticException.class, () -> cache.evaluate("5/0"));
+    }
+
+    @Test
+    void testGet_invalidExpressionNotCached() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(10);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("3++5"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testGet_evictsToStayWithinEntryLimit() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(8);
+        for (int i = 0; i < 100; i++) {
+            cache.get(i + "+1");
+        }
+        assertTrue(cache.size() <= 8);
+        assertEquals(100 - cache.size(), cache.evictionCount());
+    }
+
+    @Test
+    void testGet_leastRecentlyUsedIsEvictedFirst() {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(1);
+        CompiledExpression kept = cache.get("1+1");
+        cache.get("2+2");
+        assertNotSame(kept, cache.get("1+1"));
+        assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    void testGet_byteLimit() {
+        ExpressionCache cache = ExpressionCache.withMaximumBytes(4096);
+        for (int i = 0; i < 1000; i++) {
+            cache.get("x*" + i + "+y");
+        }
+        assertTrue(cache.weight() <= 4096);
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    @Test
+    void testGet_byteLimitKeepsEntries() {
+        ExpressionCache small = ExpressionCache.withMaximumBytes(1500);
+        for (int i = 0; i < 5; i++) {
+            small.get("1+2");
+        }
+        assertEquals(1, small.size());
+        assertEquals(4, small.hitCount());
+        assertEquals(0, small.evictionCount());
+
+        ExpressionCache medium = ExpressionCache.withMaximumBytes(50_000);
+        String longExpression = "1" + "+1".repeat(200);
+        medium.get(longExpression);
+        medium.get(longExpression);
+        assertEquals(1, medium.hitCount());
+
+        // An entry larger than the whole budget is compiled but neither cached nor evicted
+        small.get("1" + "+1".repeat(100));
+        assertEquals(1, small.size());
+        assertEquals(0, small.evictionCount());
+    }
+
+    @Test
+    void testGet_concurrentLookups() throws InterruptedException {
+        ExpressionCache cache = ExpressionCache.withMaximumEntries(64);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    if (cache.evaluate((i % 100) + "+1") != i % 100 + 1) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+        assertEquals(80000, cache.hitCount() + cache.missCount());
+        assertTrue(cache.size() <= 64);
+    }
+}
@@ -0,0 +1,366 @@
+package com.amfk.lab12;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Translates a compiled expression into a small hidden class whose single method
+ * computes the expression in straight-line bytecode. HotSpot compiles such a method
+ * like hand-written arithmetic, without the virtual call per node of the tree walk.
+ * 
+ * The class file is written directly: the method has no branches, so no stack map
+ * frames are needed. Division calls {@link #divide(double, double)} so that division
+ * by zero is reported exactly as the interpreter reports it.
+ */
+final class ExpressionClassGenerator {
+
+    /**
+     * Largest expression translated. Bigger methods would exceed HotSpot's limit on the
+     * size of methods it is willing to compile, and gain nothing over the interpreter.
+     */
+    static final int MAX_NODES = 1500;
+
+    /**
+     * The interface implemented by every generated class.
+     */
+    interface Evaluator {
+
+        /**
+         * @param values the value of each variable, indexed by slot
+         * @return the value of the expression
+         * @throws ArithmeticException if division by zero is encountered
+         */
+        double evaluate(double[] values);
+    }
+
+    private static final String CLASS_NAME = "com/amfk/lab12/GeneratedExpression";
+    private static final String EVALUATOR_NAME = "com/amfk/lab12/ExpressionClassGenerator$Evaluator";
+    private static final String GENERATOR_NAME = "com/amfk/lab12/ExpressionClassGenerator";
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DALOAD = 0x31;
+    private static final int DSTORE = 0x39;
+    private static final int DUP2 = 0x5c;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    private ExpressionClassGenerator() {
+    }
+
+    /**
+     * Generates and loads a class that evaluates an expression.
+     * 
+     * @param expression the expression to translate
+     * @return a new evaluator, or null if the expression has more than MAX_NODES nodes
+     * @throws IllegalStateException if the class cannot be defined
+     */
+    static Evaluator generate(CompiledExpression expression) {
+        ExpressionProgram program = new ExpressionProgram(expression.root);
+        if (program.opcodes.length > MAX_NODES) {
+            return null;
+        }
+        byte[] bytes = new ClassWriter(program).write();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (Evaluator) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define generated expression class", e);
+        }
+    }
+
+    /**
+     * Divides two values, failing like the interpreter on division by zero.
+     * Called by generated code.
+     */
+    static double divide(double left, double right) {
+        if (right == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return left / right;
+    }
+
+    /**
+     * Writes the class file for one program.
+     */
+    private static final class ClassWriter {
+        private final ExpressionProgram program;
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final Map<String, Integer> poolIndices = new HashMap<>();
+        private int poolCount = 1;
+
+        ClassWriter(ExpressionProgram program) {
+            this.program = program;
+        }
+
+        byte[] write() {
+            try {
+                int thisClass = classEntry(CLASS_NAME);
+                int objectClass = classEntry("java/lang/Object");
+                int evaluatorClass = classEntry(EVALUATOR_NAME);
+                int initName = utf8("<init>");
+                int initType = utf8("()V");
+                int objectInit = memberEntry(10, objectClass, "<init>", "()V");
+                int evaluateName = utf8("evaluate");
+                int evaluateType = utf8("([D)D");
+                int codeName = utf8("Code");
+
+                ByteArrayOutputStream code = new ByteArrayOutputStream();
+                int[] limits = writeEvaluate(code);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52);
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(objectClass);
+                out.writeShort(1);
+                out.writeShort(evaluatorClass);
+                out.writeShort(0); // fields
+                out.writeShort(2); // methods
+
+                byte[] init = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit, (byte) RETURN};
+                writeMethod(out, ACC_PUBLIC, initName, initType, codeName, init, 1, 1);
+                writeMethod(out, ACC_PUBLIC, evaluateName, evaluateType, codeName, code.toByteArray(), limits[0], limits[1]);
+
+                out.writeShort(0); // class attributes
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes the body of evaluate([D)D. The tree is walked with an explicit stack;
+         * a node with several parents is computed once, kept in a local variable and
+         * reloaded for its later uses.
+         * 
+         * @return the maximum operand stack size and the number of local variable slots
+         */
+        private int[] writeEvaluate(ByteArrayOutputStream code) throws IOException {
+            int size = program.opcodes.length;
+            int[] uses = new int[size];
+            for (int i = 0; i < size; i++) {
+                if (program.opcodes[i] >= ExpressionProgram.ADD) {
+                    uses[program.lefts[i]]++;
+                    uses[program.rights[i]]++;
+                }
+            }
+            int[] locals = new int[size];
+            int nextLocal = 2; // this, values
+            int stack = 0;
+            int maxStack = 0;
+            int divide = memberEntry(10, classEntry(GENERATOR_NAME), "divide", "(DD)D");
+
+            // Entries are instruction indices; a negative entry -(i + 1) means "apply operator i"
+            ArrayDeque<Integer> pending = new ArrayDeque<>();
+            pending.push(size - 1);
+            while (!pending.isEmpty()) {
+                int entry = pending.pop();
+                if (entry >= 0 && locals[entry] > 0) {
+                    writeLocal(code, DLOAD, locals[entry]);
+                    stack += 2;
+                } else if (entry >= 0 && program.opcodes[entry] == ExpressionProgram.CONSTANT) {
+                    writeConstant(code, program.constants[entry]);
+                    stack += 2;
+                } else if (entry >= 0 && program.opcodes[entry] == ExpressionProgram.VARIABLE) {
+                    code.write(ALOAD_1);
+                    writeInt(code, program.lefts[entry]);
+                    maxStack = Math.max(maxStack, stack + 2);
+                    code.write(DALOAD);
+                    stack += 2;
+                } else if (entry >= 0) {
+                    pending.push(-(entry + 1));
+                    pending.push(program.rights[entry]);
+                    pending.push(program.lefts[entry]);
+                } else {
+                    int i = -entry - 1;
+                    switch (program.opcodes[i]) {
+                        case ExpressionProgram.ADD:
+                            code.write(DADD);
+                            break;
+                        case ExpressionProgram.SUBTRACT:
+                            code.write(DSUB);
+                            break;
+                        case ExpressionProgram.MULTIPLY:
+                            code.write(DMUL);
+                            break;
+                        default:
+                            code.write(INVOKESTATIC);
+                            code.write(divide >> 8);
+                            code.write(divide);
+                            break;
+                    }
+                    stack -= 2;
+                    if (uses[i] > 1) {
+                        code.write(DUP2);
+                        maxStack = Math.max(maxStack, stack + 2);
+                        locals[i] = nextLocal;
+                        nextLocal += 2;
+                        writeLocal(code, DSTORE, locals[i]);
+                    }
+                }
+                maxStack = Math.max(maxStack, stack);
+            }
+            code.write(DRETURN);
+            return new int[] {maxStack, nextLocal};
+        }
+
+        private void writeConstant(ByteArrayOutputStream code, double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            if (bits == 0L) {
+                code.write(DCONST_0);
+            } else if (bits == Double.doubleToRawLongBits(1.0)) {
+                code.write(DCONST_1);
+            } else {
+                int index = doubleEntry(value);
+                code.write(LDC2_W);
+                code.write(index >> 8);
+                code.write(index);
+            }
+        }
+
+        private void writeInt(ByteArrayOutputStream code, int value) throws IOException {
+            if (value <= Byte.MAX_VALUE) {
+                code.write(BIPUSH);
+                code.write(value);
+            } else if (value <= Short.MAX_VALUE) {
+                code.write(SIPUSH);
+                code.write(value >> 8);
+                code.write(value);
+            } else {
+                int index = intEntry(value);
+                code.write(LDC_W);
+                code.write(index >> 8);
+                code.write(index);
+            }
+        }
+
+        private static void writeLocal(ByteArrayOutputStream code, int opcode, int local) {
+            if (local <= 0xff) {
+                code.write(opcode);
+                code.write(local);
+            } else {
+                code.write(WIDE);
+                code.write(opcode);
+                code.write(local >> 8);
+                code.write(local);
+            }
+        }
+
+        private static void writeMethod(DataOutputStream out, int access, int name, int type, int codeName,
+                byte[] code, int maxStack, int maxLocals) throws IOException {
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(type);
+            out.writeShort(1); // attributes: Code
+            out.writeShort(codeName);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // code attributes
+        }
+
+        private int utf8(String value) throws IOException {
+            Integer index = poolIndices.get("U" + value);
+            if (index == null) {
+                poolOut.writeByte(1);
+                poolOut.writeUTF(value);
+                index = add("U" + value, 1);
+            }
+            return index;
+        }
+
+        private int classEntry(String name) throws IOException {
+            Integer index = poolIndices.get("C" + name);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                poolOut.writeByte(7);
+                poolOut.writeShort(nameIndex);
+                index = add("C" + name, 1);
+            }
+            return index;
+        }
+
+        private int memberEntry(int tag, int owner, String name, String type) throws IOException {
+            String key = "M" + owner + "." + name + type;
+            Integer index = poolIndices.get(key);
+            if (index == null) {
+                int nameIndex = utf8(name);
+                int typeIndex = utf8(type);
+                poolOut.writeByte(12);
+                poolOut.writeShort(nameIndex);
+                poolOut.writeShort(typeIndex);
+                int nameAndType = add("N" + name + type, 1);
+                poolOut.writeByte(tag);
+                poolOut.writeShort(owner);
+                poolOut.writeShort(nameAndType);
+                index = add(key, 1);
+            }
+            return index;
+        }
+
+        private int doubleEntry(double value) throws IOException {
+            String key = "D" + Double.doubleToRawLongBits(value);
+            Integer index = poolIndices.get(key);
+            if (index == null) {
+                poolOut.writeByte(6);
+                poolOut.writeDouble(value);
+                index = add(key, 2);
+            }
+            return index;
+        }
+
+        private int intEntry(int value) throws IOException {
+            String key = "I" + value;
+            Integer index = poolIndices.get(key);
+            if (index == null) {
+                poolOut.writeByte(3);
+                poolOut.writeInt(value);
+                index = add(key, 1);
+            }
+            return index;
+        }
+
+        private int add(String key, int slots) {
+            int index = poolCount;
+            poolIndices.put(key, index);
+            poolCount += slots;
+            return index;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionClassGeneratorTest {
+
+    @Test
+    void testGenerate_matchesInterpreter() {
+        String[] sources = {"3+5*2", "(1+2)*(3+4)", "8-2-1", "a*b+c/2", "(a-b)/(a+b)*0.25-1", "0*a+1*b", "x"};
+        double[] values = {1.5, -2, 7};
+        for (String source : sources) {
+            CompiledExpression interpreted = RecursiveMathParser.compile(source);
+            ExpressionClassGenerator.Evaluator generated = ExpressionClassGenerator.generate(interpreted);
+            assertEquals(interpreted.evaluate(values), generated.evaluate(values), source);
+        }
+    }
+
+    @Test
+    void testGenerate_sharedSubexpressions() {
+        CompiledExpression expression = RecursiveMathParser.compile("(x*3+2)*(x*3+2) - (x*3+2)/y").optimize();
+        ExpressionClassGenerator.Evaluator generated = ExpressionClassGenerator.generate(expression);
+        double[] values = {1.25, 4};
+        assertEquals(expression.evaluate(values), generated.evaluate(values));
+    }
+
+    @Test
+    void testGenerate_divisionByZero() {
+        ExpressionClassGenerator.Evaluator generated = ExpressionClassGenerator.generate(RecursiveMathParser.compile("1/(x-x)"));
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> generated.evaluate(new double[] {3}));
+        assertEquals("Division by zero", e.getMessage());
+    }
+
+    @Test
+    void testGenerate_manyVariablesAndConstants() {
+        StringBuilder source = new StringBuilder("v0");
+        double[] values = new double[300];
+        double expected = 0;
+        for (int i = 0; i < 300; i++) {
+            values[i] = i * 0.5;
+            expected += i * 0.5 * 1.5;
+            if (i > 0) {
+                source.append("+v").append(i);
+            }
+            source.append("*1.5");
+        }
+        ExpressionClassGenerator.Evaluator generated = ExpressionClassGenerator.generate(RecursiveMathParser.compile(source.toString()));
+        assertEquals(expected, generated.evaluate(values), 1e-9);
+    }
+
+    @Test
+    void testGenerate_tooLargeFallsBackToInterpreter() {
+        CompiledExpression expression = RecursiveMathParser.compile("1" + "+1".repeat(ExpressionClassGenerator.MAX_NODES));
+        assertNull(ExpressionClassGenerator.generate(expression));
+        assertFalse(expression.generateBytecode());
+        assertEquals(ExpressionClassGenerator.MAX_NODES + 1, expression.evaluate());
+    }
+
+    @Test
+    void testGenerateBytecode_onDemand() {
+        CompiledExpression expression = RecursiveMathParser.compile("a*a-2*a*b+b*b");
+        assertTrue(expression.generateBytecode());
+        assertEquals(1, expression.evaluate(new double[] {3, 2}));
+    }
+
+    @Test
+    void testEvaluate_switchesToBytecodeAfterThreshold() {
+        CompiledExpression expression = RecursiveMathParser.compile("x/2+1");
+        double[] values = new double[1];
+        assertFalse(expression.usesGeneratedCode());
+        for (int i = 0; i < CompiledExpression.COMPILE_THRESHOLD + 10; i++) {
+            values[0] = i;
+            assertEquals(i / 2.0 + 1, expression.evaluate(values));
+        }
+        assertTrue(expression.usesGeneratedCode());
+    }
+}
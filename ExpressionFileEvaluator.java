@@ -0,0 +1,159 @@
+package com.amfk.lab12;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Evaluates a text file with one arithmetic expression per line and writes one result
+ * per line to another file.
+ * 
+ * The input is memory-mapped in line-aligned chunks that are evaluated in parallel.
+ * Each line is parsed straight from the mapped bytes and evaluated while it is parsed,
+ * so no String is created for successful lines. Only a bounded number of chunks is in
+ * flight at once and results are written in input order as soon as the oldest chunk
+ * completes, so heap use does not grow with the size of the file.
+ */
+public final class ExpressionFileEvaluator {
+
+    /** Default number of input bytes evaluated by one task. */
+    static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+    /** Prefix of the output line written for an expression that fails. */
+    static final String ERROR_PREFIX = "error: ";
+
+    private ExpressionFileEvaluator() {
+    }
+
+    /**
+     * Evaluates every line of a file on the common fork-join pool.
+     * 
+     * @param input a file of expressions, one per line, in ASCII
+     * @param output the file to create or replace with the results
+     * @return the number of lines evaluated
+     * @throws IOException if a file cannot be read or written
+     * 
+     * Postconditions:
+     * - Line i of output holds the value of line i of input, formatted like
+     *   Double.toString, or "error: " and a message if it could not be evaluated.
+     * - Blank input lines produce blank output lines.
+     */
+    public static long evaluateFile(Path input, Path output) throws IOException {
+        return evaluateFile(input, output, ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Evaluates every line of a file on the given pool.
+     * 
+     * @param input a file of expressions, one per line, in ASCII
+     * @param output the file to create or replace with the results
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkBytes the approximate number of input bytes evaluated by one task
+     * @return the number of lines evaluated
+     * @throws IOException if a file cannot be read or written
+     * @throws IllegalArgumentException if chunkBytes is not positive
+     */
+    public static long evaluateFile(Path input, Path output, ForkJoinPool pool, int chunkBytes) throws IOException {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+        }
+        int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+                OutputStream out = Files.newOutputStream(output)) {
+            long size = channel.size();
+            ArrayDeque<ForkJoinTask<ChunkResult>> inFlight = new ArrayDeque<>();
+            long start = 0;
+            while (start < size || !inFlight.isEmpty()) {
+                if (start < size && inFlight.size() < maxInFlight) {
+                    long end = LineChunks.chunkEnd(channel, start, chunkBytes, size);
+                    MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                    inFlight.add(pool.submit(new ChunkTask(chunk)));
+                    start = end;
+                } else {
+                    ChunkResult result = inFlight.poll().join();
+                    result.output.writeTo(out);
+                    lines += result.lines;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static final class ChunkResult {
+        final ByteArrayOutputStream output;
+        final long lines;
+
+        ChunkResult(ByteArrayOutputStream output, long lines) {
+            this.output = output;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * Evaluates every line of one mapped chunk into an in-memory block of output lines.
+     */
+    private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final MappedByteBuffer chunk;
+
+        ChunkTask(MappedByteBuffer chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected ChunkResult compute() {
+            ExpressionParser.DirectEvaluator evaluator = new ExpressionParser.DirectEvaluator();
+            ByteCharSequence line = new ByteCharSequence();
+            StringBuilder formatted = new StringBuilder(32);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(chunk.limit() / 2 + 16);
+            long lines = 0;
+            int limit = chunk.limit();
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                if (lineEnd > lineStart && chunk.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                formatted.setLength(0);
+                if (!isBlank(chunk, lineStart, lineEnd)) {
+                    try {
+                        formatted.append(evaluator.evaluate(line.reset(chunk, lineStart, lineEnd)));
+                    } catch (RuntimeException e) {
+                        formatted.append(ERROR_PREFIX).append(e.getMessage());
+                    }
+                }
+                for (int i = 0; i < formatted.length(); i++) {
+                    output.write(formatted.charAt(i));
+                }
+                output.write('\n');
+                lines++;
+                lineStart = next;
+            }
+            return new ChunkResult(output, lines);
+        }
+
+        private static boolean isBlank(MappedByteBuffer chunk, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(chunk.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
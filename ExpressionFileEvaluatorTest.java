@@ -0,0 +1,74 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ExpressionFileEvaluatorTest {
+
+    @Test
+    void testEvaluateFile_resultsInInputOrder() throws IOException {
+        Path input = Files.createTempFile("expressions", ".txt");
+        Path output = Files.createTempFile("results", ".txt");
+        try {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                lines.add("(" + i + " + 1) * 2");
+            }
+            Files.write(input, lines);
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                // A tiny chunk size forces many chunks and out-of-order completion
+                assertEquals(5000, ExpressionFileEvaluator.evaluateFile(input, output, pool, 64));
+            } finally {
+                pool.shutdown();
+            }
+            List<String> results = Files.readAllLines(output);
+            assertEquals(5000, results.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals(Double.toString((i + 1) * 2.0), results.get(i));
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    void testEvaluateFile_errorsAndBlankLines() throws IOException {
+        Path input = Files.createTempFile("expressions", ".txt");
+        Path output = Files.createTempFile("results", ".txt");
+        try {
+            Files.writeString(input, "3+5*2\r\n5/0\n\n3++5\nx+1\n4.5");
+            assertEquals(6, ExpressionFileEvaluator.evaluateFile(input, output));
+            List<String> results = Files.readAllLines(output);
+            assertEquals("13.0", results.get(0));
+            assertEquals("error: Division by zero", results.get(1));
+            assertEquals("", results.get(2));
+            assertTrue(results.get(3).startsWith("error: "));
+            assertTrue(results.get(4).startsWith("error: "));
+            assertEquals("4.5", results.get(5));
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    void testEvaluateFile_emptyFile() throws IOException {
+        Path input = Files.createTempFile("expressions", ".txt");
+        Path output = Files.createTempFile("results", ".txt");
+        try {
+            assertEquals(0, ExpressionFileEvaluator.evaluateFile(input, output));
+            assertEquals(0, Files.size(output));
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+}
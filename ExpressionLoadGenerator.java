@@ -0,0 +1,187 @@
+package com.amfk.lab12;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A load generator for {@link ExpressionServer}. Each connection runs on its own thread
+ * and keeps a fixed number of requests in flight, sending a new request whenever a
+ * response arrives. Latency is measured per request on the client side.
+ */
+public final class ExpressionLoadGenerator {
+
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private long elapsedNanos;
+
+    private ExpressionLoadGenerator() {
+    }
+
+    /**
+     * Sends requests to a server and waits for every response.
+     * 
+     * @param address the server's address, TCP or Unix domain
+     * @param connections the number of concurrent connections
+     * @param requestsPerConnection the number of requests sent on each connection
+     * @param pipelineDepth the number of requests kept in flight on each connection
+     * @param expressions the expressions to send, used in rotation
+     * @return the measurements of the run
+     * @throws IOException if a connection fails
+     * @throws InterruptedException if interrupted while waiting for connections to finish
+     * @throws IllegalArgumentException if an expression is longer than the server accepts
+     */
+    public static ExpressionLoadGenerator run(SocketAddress address, int connections, int requestsPerConnection,
+            int pipelineDepth, List<String> expressions) throws IOException, InterruptedException {
+        for (String expression : expressions) {
+            if (expression.length() >= ExpressionServer.MAX_LINE_BYTES) {
+                throw new IllegalArgumentException("Expression of " + expression.length()
+                        + " characters is longer than the server accepts");
+            }
+        }
+        ExpressionLoadGenerator generator = new ExpressionLoadGenerator();
+        List<Thread> threads = new ArrayList<>();
+        List<IOException> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            int offset = c;
+            Thread thread = new Thread(() -> {
+                try {
+                    generator.drive(address, requestsPerConnection, pipelineDepth, expressions, offset);
+                } catch (IOException e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "expression-load-" + c);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        generator.elapsedNanos = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return generator;
+    }
+
+    /** @return the number of responses received */
+    public long responseCount() {
+        return responses.get();
+    }
+
+    /** @return the number of responses that reported an error */
+    public long errorCount() {
+        return errors.get();
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100 (e.g. 50 or 99)
+     * @return the round-trip latency at that percentile in nanoseconds, within about 6%
+     */
+    public long latencyPercentile(double percentile) {
+        return latencies.percentile(percentile);
+    }
+
+    /** @return responses received per second over the whole run */
+    public double throughput() {
+        return elapsedNanos > 0 ? responses.get() / (elapsedNanos / 1e9) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d responses (%d errors), p50=%.1fus, p99=%.1fus, %.0f req/s", responseCount(), errorCount(),
+                latencyPercentile(50) / 1e3, latencyPercentile(99) / 1e3, throughput());
+    }
+
+    private void drive(SocketAddress address, int requests, int pipelineDepth, List<String> expressions, int offset)
+            throws IOException {
+        try (SocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX) : SocketChannel.open()) {
+            channel.connect(address);
+            long[] sentNanos = new long[requests];
+            ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+            ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+            int sent = 0;
+            int received = 0;
+            while (received < requests) {
+                // Top up the pipeline, then send everything queued in one write
+                while (sent < requests && sent - received < pipelineDepth) {
+                    byte[] line = (expressions.get((offset + sent) % expressions.size()) + "\n")
+                            .getBytes(StandardCharsets.ISO_8859_1);
+                    if (out.remaining() < line.length) {
+                        if (out.position() > 0) {
+                            break;
+                        }
+                        // A single request larger than the buffer
+                        out = ByteBuffer.allocate(line.length);
+                    }
+                    out.put(line);
+                    sentNanos[sent++] = System.nanoTime();
+                }
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                out.clear();
+
+                if (!in.hasRemaining()) {
+                    // A response line larger than the buffer; make room for the rest of it
+                    in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+                }
+                if (channel.read(in) < 0) {
+                    throw new IOException("Server closed the connection after " + received + " responses");
+                }
+                long now = System.nanoTime();
+                in.flip();
+                int lineStart = 0;
+                for (int i = 0; i < in.limit(); i++) {
+                    if (in.get(i) == '\n') {
+                        if (in.get(lineStart) == 'e') {
+                            errors.incrementAndGet();
+                        }
+                        latencies.record(now - sentNanos[received++]);
+                        responses.incrementAndGet();
+                        lineStart = i + 1;
+                    }
+                }
+                in.position(lineStart);
+                in.compact();
+            }
+        }
+    }
+
+    /**
+     * Runs a load test against a server on this machine and prints the results.
+     * 
+     * @param args a TCP port or the path of a Unix domain socket, then optionally the
+     *        number of connections, requests per connection and pipeline depth
+     * @throws IOException if a connection fails
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SocketAddress address = args.length > 0 && !args[0].matches("\\d+")
+                ? UnixDomainSocketAddress.of(Path.of(args[0]))
+                : new InetSocketAddress("127.0.0.1", args.length > 0 ? Integer.parseInt(args[0]) : 7878);
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100000;
+        int pipelineDepth = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expressions.add("(" + i + " + 3) * 2 / (1 + " + (i % 7) + ") - 4.5");
+        }
+        System.out.println(run(address, connections, requests, pipelineDepth, expressions));
+    }
+}
@@ -0,0 +1,161 @@
+package com.amfk.lab12;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simplifies compiled expressions by constant folding, removal of identity operations
+ * and common-subexpression elimination. The tree is rewritten bottom-up in a single
+ * pass over its postfix order, so it works for trees of any depth.
+ */
+final class ExpressionOptimizer {
+
+    private ExpressionOptimizer() {
+    }
+
+    /**
+     * Optimizes an expression.
+     * 
+     * @param expression the expression to optimize
+     * @return an equivalent expression whose nodes are shared wherever they compute the
+     *         same thing; see {@link CompiledExpression#optimize()}
+     */
+    static CompiledExpression optimize(CompiledExpression expression) {
+        List<CompiledExpression.Node> postfix = ExpressionProgram.flatten(expression.root);
+        // The simplified replacement of every original node
+        Map<CompiledExpression.Node, CompiledExpression.Node> replacements = new IdentityHashMap<>();
+        // One canonical node per distinct operation, so equal subexpressions become one node
+        Map<Key, CompiledExpression.Node> canonical = new HashMap<>();
+        Map<CompiledExpression.Node, Integer> ids = new IdentityHashMap<>();
+        boolean shared = expression.sharesNodes();
+
+        CompiledExpression.Node result = null;
+        for (CompiledExpression.Node node : postfix) {
+            Key key;
+            CompiledExpression.Node candidate;
+            if (node instanceof CompiledExpression.BinaryOperation) {
+                CompiledExpression.BinaryOperation operation = (CompiledExpression.BinaryOperation) node;
+                CompiledExpression.Node left = replacements.get(operation.left);
+                CompiledExpression.Node right = replacements.get(operation.right);
+                CompiledExpression.Node simplified = simplify(operation.operator, left, right);
+                if (simplified != null) {
+                    result = simplified;
+                    if (!ids.containsKey(simplified)) {
+                        // A newly folded constant; merge it with equal constants
+                        CompiledExpression.Node existing = canonical.putIfAbsent(Key.of(simplified), simplified);
+                        result = existing != null ? existing : simplified;
+                        ids.putIfAbsent(result, ids.size());
+                    }
+                    replacements.put(node, result);
+                    continue;
+                }
+                char operator = operation.operator;
+                if ((operator == '+' || operator == '*') && ids.get(left) > ids.get(right)) {
+                    // Addition and multiplication are commutative, so a+b and b+a are merged
+                    CompiledExpression.Node swap = left;
+                    left = right;
+                    right = swap;
+                }
+                key = new Key(operator, 0, left, right);
+                candidate = left == operation.left && right == operation.right
+                        ? operation : new CompiledExpression.BinaryOperation(operator, left, right);
+            } else {
+                key = Key.of(node);
+                candidate = node;
+            }
+            CompiledExpression.Node existing = canonical.get(key);
+            if (existing != null) {
+                shared |= existing instanceof CompiledExpression.BinaryOperation;
+                result = existing;
+            } else {
+                canonical.put(key, candidate);
+                ids.put(candidate, ids.size());
+                result = candidate;
+            }
+            replacements.put(node, result);
+        }
+        return new CompiledExpression(result, expression.variableArray(), expression.sourceNodeCount(), shared);
+    }
+
+    /**
+     * Folds an operation on constants or removes an identity operation.
+     * 
+     * @return the simplified node, or null if the operation must be kept
+     */
+    private static CompiledExpression.Node simplify(char operator, CompiledExpression.Node left, CompiledExpression.Node right) {
+        if (left instanceof CompiledExpression.Number && right instanceof CompiledExpression.Number) {
+            double l = ((CompiledExpression.Number) left).value;
+            double r = ((CompiledExpression.Number) right).value;
+            if (operator == '/' && r == 0) {
+                // Keep it so that evaluation still reports the division by zero
+                return null;
+            }
+            return new CompiledExpression.Number(CompiledExpression.apply(operator, l, r));
+        }
+        switch (operator) {
+            case '+':
+                if (isConstant(right, 0)) {
+                    return left;
+                }
+                return isConstant(left, 0) ? right : null;
+            case '-':
+                return isConstant(right, 0) ? left : null;
+            case '*':
+                if (isConstant(right, 1)) {
+                    return left;
+                }
+                return isConstant(left, 1) ? right : null;
+            case '/':
+                return isConstant(right, 1) ? left : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isConstant(CompiledExpression.Node node, double value) {
+        return node instanceof CompiledExpression.Number && ((CompiledExpression.Number) node).value == value;
+    }
+
+    /**
+     * Identifies what a node computes. Operands are canonical nodes, so they are
+     * compared by identity.
+     */
+    private static final class Key {
+        final char kind;
+        final long bits;
+        final CompiledExpression.Node left;
+        final CompiledExpression.Node right;
+
+        Key(char kind, long bits, CompiledExpression.Node left, CompiledExpression.Node right) {
+            this.kind = kind;
+            this.bits = bits;
+            this.left = left;
+            this.right = right;
+        }
+
+        static Key of(CompiledExpression.Node leaf) {
+            if (leaf instanceof CompiledExpression.Number) {
+                return new Key('#', Double.doubleToLongBits(((CompiledExpression.Number) leaf).value), null, null);
+            }
+            return new Key('$', ((CompiledExpression.Variable) leaf).slot, null, null);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return kind == key.kind && bits == key.bits && left == key.left && right == key.right;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = kind * 31 + Long.hashCode(bits);
+            hash = hash * 31 + System.identityHashCode(left);
+            return hash * 31 + System.identityHashCode(right);
+        }
+    }
+}
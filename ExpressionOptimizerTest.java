@@ -0,0 +1,112 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExpressionOptimizerTest {
+
+    @Test
+    void testOptimize_foldsConstantSubtrees() {
+        CompiledExpression expression = RecursiveMathParser.compile("x * (2 + 3 * 4) - (10 / 4)").optimize();
+        assertEquals(5, expression.nodeCount()); // x, 14, *, 2.5, -
+        assertEquals(25.5, expression.evaluate(new double[] {2}));
+    }
+
+    @Test
+    void testOptimize_removesIdentities() {
+        CompiledExpression expression = RecursiveMathParser.compile("(x * 1 + 0) / 1 - 0 + 1 * (0 + y)").optimize();
+        assertEquals(3, expression.nodeCount()); // x, y, +
+        assertEquals(7, expression.evaluate(new double[] {3, 4}));
+    }
+
+    @Test
+    void testOptimize_mergesCommonSubexpressions() {
+        CompiledExpression source = RecursiveMathParser.compile("(x*3+2)*(x*3+2)");
+        CompiledExpression expression = source.optimize();
+        assertEquals(11, source.nodeCount());
+        assertEquals(6, expression.nodeCount()); // x, 3, *, 2, +, *
+        assertEquals(source.evaluate(new double[] {1.5}), expression.evaluate(new double[] {1.5}));
+    }
+
+    @Test
+    void testOptimize_mergesCommutedOperands() {
+        CompiledExpression expression = RecursiveMathParser.compile("a*b - b*a").optimize();
+        assertEquals(4, expression.nodeCount()); // a, b, *, -
+        assertEquals(0, expression.evaluate(new double[] {3, 5}));
+    }
+
+    @Test
+    void testOptimize_keepsDivisionByConstantZero() {
+        CompiledExpression expression = RecursiveMathParser.compile("x + 1/0").optimize();
+        assertThrows(ArithmeticException.class, () -> expression.evaluate(new double[] {1}));
+    }
+
+    @Test
+    void testOptimize_sharedSubexpressionsInColumns() {
+        CompiledExpression expression = RecursiveMathParser.compile("(a+b)/(a-b) + (a+b)*(a-b)").optimize();
+        double[] a = {5, 2, 1};
+        double[] b = {3, 2, 4};
+        double[] out = new double[3];
+        boolean[] errors = new boolean[3];
+        expression.evaluate(new double[][] {a, b}, out, errors);
+        assertArrayEquals(new boolean[] {false, true, false}, errors);
+        assertEquals(4 + 16, out[0]);
+        assertEquals(5.0 / -3 + 5 * -3, out[2]);
+    }
+
+    @Test
+    void testOptimize_repeatedSquaringStaysLinear() {
+        // Each level doubles the size of the tree but adds only two nodes to the DAG
+        String source = "x";
+        for (int i = 0; i < 10; i++) {
+            source = "(" + source + "+1)*(" + source + "+1)";
+        }
+        CompiledExpression tree = RecursiveMathParser.compile(source);
+        CompiledExpression expression = tree.optimize();
+        assertEquals(2 + 2 * 10, expression.nodeCount());
+        assertEquals(tree.evaluate(new double[] {-1}), expression.evaluate(new double[] {-1}));
+    }
+
+    @Test
+    void testOptimize_sharedScratchIsPerThread() throws InterruptedException {
+        CompiledExpression small = RecursiveMathParser.compile("(x*3+2)*(x*3+2) - (x+1)/(x+1)").optimize();
+        StringBuilder large = new StringBuilder("0");
+        for (int i = 0; i < 200; i++) {
+            large.append(" + (x*").append(i).append(")/(x*").append(i).append("+1)");
+        }
+        CompiledExpression big = RecursiveMathParser.compile(large + " + " + large).optimize();
+        CompiledExpression bigTree = RecursiveMathParser.compile(large + " + " + large);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    double x = i % 50 + 1;
+                    // Alternate programs of different register counts on the same thread
+                    if (small.evaluate(new double[] {x}) != (x * 3 + 2) * (x * 3 + 2) - 1) {
+                        wrong.incrementAndGet();
+                    }
+                    if (i % 100 == 0 && big.evaluate(new double[] {x}) != bigTree.evaluate(new double[] {x})) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void testDump_reportsNodeCounts() {
+        String dump = RecursiveMathParser.compile("(x*3+2)*(x*3+2)").optimize().dump();
+        assertTrue(dump.startsWith("nodes: 6 (before optimization: 11), variables: [x]"), dump);
+        assertTrue(dump.contains("t5 = t4 * t4"), dump);
+    }
+}
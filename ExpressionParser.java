@@ -0,0 +1,362 @@
+package com.amfk.lab12;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single-pass operator-precedence parser for arithmetic expressions.
+ * The input is read once from left to right; numbers are decoded in place
+ * without creating substrings, so parsing is linear in the length of the input.
+ * 
+ * The parser does not build anything itself: it reports numbers, variables and
+ * operators to a {@link Sink} in postfix order. {@link #parse(String)} uses a sink
+ * that builds a tree, while {@link DirectEvaluator} computes the value on the fly
+ * without allocating.
+ */
+final class ExpressionParser {
+
+    /** Exact powers of ten that can be represented as a double. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Largest integer for which every smaller integer is exactly representable as a double. */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /**
+     * Receives the elements of a parsed expression in postfix order.
+     */
+    interface Sink {
+
+        /** Called for each numeric literal. */
+        void number(double value);
+
+        /** Called for each variable, whose name is input[start, end). */
+        void variable(CharSequence input, int start, int end);
+
+        /** Called for each operator after both of its operands. */
+        void operator(char operator);
+    }
+
+    private CharSequence input;
+    private int position;
+
+    /** Operators and open parentheses whose right-hand side is still being parsed. */
+    private char[] pending = new char[16];
+    private int pendingCount;
+
+    /**
+     * Parses a complete expression into a tree.
+     * 
+     * @param input the mathematical expression as a string
+     * @return the tree of the parsed expression
+     * @throws IllegalArgumentException if the expression is not well-formed
+     * 
+     * Preconditions:
+     * - The input contains only numbers, variable names, +, -, *, /, parentheses and whitespace.
+     * - Variable names start with a letter or underscore, followed by letters, digits or underscores.
+     * 
+     * Postconditions:
+     * - Operators of equal precedence associate to the left.
+     * - * and / bind more tightly than + and -.
+     * - Variables are numbered in order of their first appearance.
+     */
+    static CompiledExpression parse(String input) {
+        TreeBuilder builder = new TreeBuilder();
+        new ExpressionParser().parse(input, builder);
+        return builder.build();
+    }
+
+    /**
+     * Parses a complete expression, reporting its elements to a sink.
+     * A parser may be reused for any number of inputs, but not by several threads at once.
+     * 
+     * Parsing uses an explicit stack of pending operators and open parentheses instead
+     * of recursion, so arbitrarily deep nesting is handled in linear time with constant
+     * Java stack depth.
+     * 
+     * @param input the characters of the expression
+     * @param sink receives the numbers, variables and operators in postfix order
+     * @throws IllegalArgumentException if the expression is not well-formed
+     */
+    void parse(CharSequence input, Sink sink) {
+        this.input = input;
+        this.position = 0;
+        this.pendingCount = 0;
+        try {
+            boolean expectOperand = true;
+            while (true) {
+                skipWhitespace();
+                if (expectOperand) {
+                    expectOperand = parseOperand(sink);
+                    continue;
+                }
+                if (position >= input.length()) {
+                    break;
+                }
+                char c = input.charAt(position);
+                int precedence = precedence(c);
+                if (precedence > 0) {
+                    // Operators of equal precedence associate to the left, so they are emitted first
+                    while (pendingCount > 0 && precedence(pending[pendingCount - 1]) >= precedence) {
+                        sink.operator(pending[--pendingCount]);
+                    }
+                    push(c);
+                    expectOperand = true;
+                } else if (c == ')') {
+                    while (pendingCount > 0 && pending[pendingCount - 1] != '(') {
+                        sink.operator(pending[--pendingCount]);
+                    }
+                    if (pendingCount == 0) {
+                        throw error("Unexpected character ')'");
+                    }
+                    pendingCount--;
+                } else {
+                    throw error("Unexpected character '" + c + "'");
+                }
+                position++;
+            }
+            while (pendingCount > 0) {
+                char operator = pending[--pendingCount];
+                if (operator == '(') {
+                    throw error("Expected ')'");
+                }
+                sink.operator(operator);
+            }
+        } finally {
+            this.input = null;
+        }
+    }
+
+    /**
+     * Parses an opening parenthesis, a variable or a number.
+     * 
+     * @return true if an operand is still expected, i.e. a parenthesis was opened
+     */
+    private boolean parseOperand(Sink sink) {
+        if (position < input.length()) {
+            char c = input.charAt(position);
+            if (c == '(') {
+                push(c);
+                position++;
+                return true;
+            }
+            if (isIdentifierStart(c)) {
+                int start = position;
+                while (position < input.length() && isIdentifierPart(input.charAt(position))) {
+                    position++;
+                }
+                sink.variable(input, start, position);
+                return false;
+            }
+        }
+        sink.number(parseNumber());
+        return false;
+    }
+
+    private void push(char c) {
+        if (pendingCount == pending.length) {
+            pending = Arrays.copyOf(pending, pendingCount * 2);
+        }
+        pending[pendingCount++] = c;
+    }
+
+    /**
+     * Decodes a decimal number, optionally with a fraction and an exponent, starting at
+     * the current position. Numbers whose digits and exponent are small enough are
+     * converted exactly with one multiplication or division; anything else falls back
+     * to Double.parseDouble so the result is always correctly rounded.
+     */
+    private double parseNumber() {
+        int start = position;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (mantissa < MAX_EXACT_MANTISSA) {
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (digits == 0) {
+            position = start;
+            throw error("Expected a number");
+        }
+
+        int exponent = 0;
+        if (position < input.length() && (input.charAt(position) == 'e' || input.charAt(position) == 'E')) {
+            int exponentStart = position;
+            position++;
+            boolean negative = false;
+            if (position < input.length() && (input.charAt(position) == '+' || input.charAt(position) == '-')) {
+                negative = input.charAt(position) == '-';
+                position++;
+            }
+            if (position >= input.length() || input.charAt(position) < '0' || input.charAt(position) > '9') {
+                // Not an exponent after all; leave the 'e' for the caller to reject
+                position = exponentStart;
+            } else {
+                while (position < input.length() && input.charAt(position) >= '0' && input.charAt(position) <= '9') {
+                    if (exponent < 10000) {
+                        exponent = exponent * 10 + (input.charAt(position) - '0');
+                    }
+                    position++;
+                }
+                if (negative) {
+                    exponent = -exponent;
+                }
+            }
+        }
+
+        int scale = exponent - fractionDigits;
+        if (mantissa < MAX_EXACT_MANTISSA && scale >= -22 && scale <= 22) {
+            return scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+        }
+        return Double.parseDouble(input.subSequence(start, position).toString());
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Tells whether a string is a valid variable name.
+     * 
+     * @param name the candidate name
+     * @return true if name is a letter or underscore followed by letters, digits or underscores
+     */
+    static boolean isIdentifier(CharSequence name) {
+        if (name.length() == 0 || !isIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!isIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || (c >= '0' && c <= '9');
+    }
+
+    private static int precedence(char operator) {
+        switch (operator) {
+            case '+':
+            case '-':
+                return 1;
+            case '*':
+            case '/':
+                return 2;
+            default:
+                return 0;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + position + " in \"" + input + "\"");
+    }
+
+    /**
+     * Builds a tree from postfix elements, numbering variables in order of first appearance.
+     */
+    private static final class TreeBuilder implements Sink {
+        private final List<CompiledExpression.Node> stack = new ArrayList<>();
+        private final Map<String, Integer> variables = new LinkedHashMap<>();
+
+        @Override
+        public void number(double value) {
+            stack.add(new CompiledExpression.Number(value));
+        }
+
+        @Override
+        public void variable(CharSequence input, int start, int end) {
+            String name = input.subSequence(start, end).toString();
+            Integer slot = variables.get(name);
+            if (slot == null) {
+                slot = variables.size();
+                variables.put(name, slot);
+            }
+            stack.add(new CompiledExpression.Variable(slot));
+        }
+
+        @Override
+        public void operator(char operator) {
+            CompiledExpression.Node right = stack.remove(stack.size() - 1);
+            CompiledExpression.Node left = stack.remove(stack.size() - 1);
+            stack.add(new CompiledExpression.BinaryOperation(operator, left, right));
+        }
+
+        CompiledExpression build() {
+            return new CompiledExpression(stack.get(0), variables.keySet().toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Evaluates expressions while they are parsed, keeping intermediate values on a
+     * primitive stack. Nothing is allocated per expression once the stack has grown to
+     * the deepest expression seen, which makes this suitable for streaming input.
+     * An instance is reusable but must not be shared between threads.
+     */
+    static final class DirectEvaluator implements Sink {
+        private final ExpressionParser parser = new ExpressionParser();
+        private double[] stack = new double[16];
+        private int depth;
+
+        /**
+         * Parses and evaluates one expression without variables.
+         * 
+         * @param input the characters of the expression
+         * @return the value of the expression
+         * @throws ArithmeticException if division by zero is encountered
+         * @throws IllegalArgumentException if the expression is not well-formed or has variables
+         */
+        double evaluate(CharSequence input) {
+            depth = 0;
+            parser.parse(input, this);
+            return stack[0];
+        }
+
+        @Override
+        public void number(double value) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = value;
+        }
+
+        @Override
+        public void variable(CharSequence input, int start, int end) {
+            throw new IllegalArgumentException("Unknown variable " + input.subSequence(start, end));
+        }
+
+        @Override
+        public void operator(char operator) {
+            double right = stack[--depth];
+            stack[depth - 1] = CompiledExpression.apply(operator, stack[depth - 1], right);
+        }
+    }
+}
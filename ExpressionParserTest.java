@@ -0,0 +1,102 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class ExpressionParserTest {
+
+    @Test
+    void testParse_leftAssociativeSubtraction() {
+        assertEquals(5, ExpressionParser.parse("8-2-1").evaluate());
+    }
+
+    @Test
+    void testParse_leftAssociativeDivision() {
+        assertEquals(8, ExpressionParser.parse("8/2*2").evaluate());
+    }
+
+    @Test
+    void testParse_parenthesizedOperands() {
+        assertEquals(21, ExpressionParser.parse("(1+2)*(3+4)").evaluate());
+    }
+
+    @Test
+    void testParse_nestedParentheses() {
+        assertEquals(20, ExpressionParser.parse("((2+3))*((4))").evaluate());
+    }
+
+    @Test
+    void testParse_whitespace() {
+        assertEquals(13, ExpressionParser.parse("  3 +\t5 * 2 ").evaluate());
+    }
+
+    @Test
+    void testParse_decimalsMatchParseDouble() {
+        assertEquals(0.1, ExpressionParser.parse("0.1").evaluate());
+        assertEquals(123.456, ExpressionParser.parse("123.456").evaluate());
+        assertEquals(Double.parseDouble("3.141592653589793238"), ExpressionParser.parse("3.141592653589793238").evaluate());
+        assertEquals(Double.parseDouble("12345678901234567890"), ExpressionParser.parse("12345678901234567890").evaluate());
+    }
+
+    @Test
+    void testParse_scientificNotation() {
+        assertEquals(1.5e3, ExpressionParser.parse("1.5e3").evaluate());
+        assertEquals(2e-5 + 1, ExpressionParser.parse("2e-5+1").evaluate());
+        assertEquals(Double.parseDouble("1e300"), ExpressionParser.parse("1e300").evaluate());
+    }
+
+    @Test
+    void testParse_longFlatExpression() {
+        StringBuilder source = new StringBuilder("0");
+        for (int i = 1; i <= 100000; i++) {
+            source.append('+').append(i);
+        }
+        assertEquals(5000050000.0, ExpressionParser.parse(source.toString()).evaluate());
+    }
+
+    @Test
+    void testParse_invalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("(1+2"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1+2)"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1 2"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("3*"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("."));
+    }
+
+    @Test
+    void testDirectEvaluator_matchesTree() {
+        ExpressionParser.DirectEvaluator evaluator = new ExpressionParser.DirectEvaluator();
+        String[] sources = {"3+5*2", "(1+2)*(3+4)", "8-2-1", "((((1.5))))/3", "2e3-1"};
+        for (String source : sources) {
+            assertEquals(ExpressionParser.parse(source).evaluate(), evaluator.evaluate(source));
+        }
+        assertThrows(ArithmeticException.class, () -> evaluator.evaluate("1/(2-2)"));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate("a+1"));
+    }
+
+    @Test
+    void testParse_deeplyNestedParentheses() {
+        int depth = 100000;
+        String source = "(".repeat(depth) + "1+2" + ")".repeat(depth) + "*3";
+        assertEquals(9, ExpressionParser.parse(source).evaluate());
+        assertEquals(9, new ExpressionParser.DirectEvaluator().evaluate(source));
+    }
+
+    @Test
+    void testParse_deeplyNestedRightOperands() {
+        StringBuilder source = new StringBuilder();
+        int depth = 50000;
+        for (int i = 0; i < depth; i++) {
+            source.append("1+(");
+        }
+        source.append('1').append(")".repeat(depth));
+        assertEquals(depth + 1, ExpressionParser.parse(source.toString()).evaluate());
+    }
+
+    @Test
+    void testParse_unbalancedDeepParentheses() {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("(".repeat(10000) + "1"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parse("1" + ")".repeat(10000)));
+    }
+}
@@ -0,0 +1,328 @@
+package com.amfk.lab12;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled expression flattened into postfix instructions for column-at-a-time
+ * evaluation. Rows are processed in blocks; for each block every operator runs one
+ * tight loop over arrays, which keeps the working set in cache and lets the JIT
+ * unroll and vectorize the arithmetic.
+ * 
+ * Programs are built and run without recursion, so they also serve as the evaluator
+ * for single rows of trees too deep to walk recursively. A node shared by several
+ * parents becomes a single instruction, so common subexpressions are computed once.
+ */
+final class ExpressionProgram {
+
+    /** Number of rows evaluated per block; small enough that all registers stay in L1/L2. */
+    static final int BLOCK_SIZE = 1024;
+
+    static final byte CONSTANT = 0;
+    static final byte VARIABLE = 1;
+    static final byte ADD = 2;
+    static final byte SUBTRACT = 3;
+    static final byte MULTIPLY = 4;
+    static final byte DIVIDE = 5;
+
+    /**
+     * Registers of single-row evaluation, reused by every program run on a thread so that
+     * evaluating a row allocates nothing. Evaluation never calls back into user code, so a
+     * thread is never inside two evaluations at once.
+     */
+    private static final ThreadLocal<double[]> ROW_SCRATCH = ThreadLocal.withInitial(() -> new double[64]);
+
+    /** Operation of each instruction, in postfix order. */
+    final byte[] opcodes;
+    /** Left operand instruction for operators, or the variable slot for VARIABLE. */
+    final int[] lefts;
+    /** Right operand instruction for operators. */
+    final int[] rights;
+    /** Literal value for CONSTANT. */
+    final double[] constants;
+    /** Scratch register holding the result of each operator; -1 for leaves and the final result. */
+    final int[] registers;
+    /** Number of scratch registers needed at once; each is reused once its value is dead. */
+    final int registerCount;
+
+    ExpressionProgram(CompiledExpression.Node root) {
+        List<CompiledExpression.Node> postfix = flatten(root);
+        int size = postfix.size();
+        opcodes = new byte[size];
+        lefts = new int[size];
+        rights = new int[size];
+        constants = new double[size];
+        registers = new int[size];
+        Arrays.fill(registers, -1);
+
+        // Nodes shared by several parents appear once, so operands are found by identity
+        Map<CompiledExpression.Node, Integer> indices = new IdentityHashMap<>();
+        int[] remainingUses = new int[size];
+        for (int i = 0; i < size; i++) {
+            CompiledExpression.Node node = postfix.get(i);
+            indices.put(node, i);
+            if (node instanceof CompiledExpression.BinaryOperation) {
+                CompiledExpression.BinaryOperation operation = (CompiledExpression.BinaryOperation) node;
+                remainingUses[indices.get(operation.left)]++;
+                remainingUses[indices.get(operation.right)]++;
+            }
+        }
+
+        // An operator result holds a register until its last use; freed registers are reused
+        int[] free = new int[size];
+        int freeCount = 0;
+        int allocated = 0;
+        for (int i = 0; i < size; i++) {
+            CompiledExpression.Node node = postfix.get(i);
+            if (node instanceof CompiledExpression.Number) {
+                opcodes[i] = CONSTANT;
+                constants[i] = ((CompiledExpression.Number) node).value;
+            } else if (node instanceof CompiledExpression.Variable) {
+                opcodes[i] = VARIABLE;
+                lefts[i] = ((CompiledExpression.Variable) node).slot;
+            } else {
+                CompiledExpression.BinaryOperation operation = (CompiledExpression.BinaryOperation) node;
+                opcodes[i] = opcode(operation.operator);
+                lefts[i] = indices.get(operation.left);
+                rights[i] = indices.get(operation.right);
+                if (--remainingUses[lefts[i]] == 0 && registers[lefts[i]] >= 0) {
+                    free[freeCount++] = registers[lefts[i]];
+                }
+                if (--remainingUses[rights[i]] == 0 && registers[rights[i]] >= 0) {
+                    free[freeCount++] = registers[rights[i]];
+                }
+                if (i < size - 1) {
+                    registers[i] = freeCount > 0 ? free[--freeCount] : allocated++;
+                }
+            }
+        }
+        registerCount = allocated;
+    }
+
+    /**
+     * Evaluates the program for one row of variable values, in linear time and with
+     * constant Java stack depth regardless of how deeply the expression is nested.
+     * 
+     * @param values the value of each variable slot
+     * @return the value of the expression
+     * @throws ArithmeticException if division by zero is encountered
+     */
+    double evaluate(double[] values) {
+        int size = opcodes.length;
+        double[] scratch = ROW_SCRATCH.get();
+        if (scratch.length < registerCount) {
+            scratch = new double[Math.max(registerCount, scratch.length * 2)];
+            ROW_SCRATCH.set(scratch);
+        }
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            switch (opcodes[i]) {
+                case CONSTANT:
+                case VARIABLE:
+                    result = operand(i, values, scratch);
+                    break;
+                default:
+                    double left = operand(lefts[i], values, scratch);
+                    double right = operand(rights[i], values, scratch);
+                    if (opcodes[i] == DIVIDE && right == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    result = compute(opcodes[i], left, right);
+                    if (registers[i] >= 0) {
+                        scratch[registers[i]] = result;
+                    }
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the program over columns of variable values.
+     * 
+     * @param columns one column per variable slot
+     * @param out receives one result per row
+     * @param errors if not null, receives true for rows that divide by zero; otherwise
+     *        division by zero throws
+     * @throws ArithmeticException if a row divides by zero and errors is null
+     */
+    void evaluate(double[][] columns, double[] out, boolean[] errors) {
+        int size = opcodes.length;
+        int block = Math.min(BLOCK_SIZE, out.length);
+        double[][] scratch = new double[registerCount][block];
+        // Operand arrays and offsets of each instruction for the current block
+        double[][] arrays = new double[size][];
+        int[] offsets = new int[size];
+        for (int i = 0; i < size; i++) {
+            if (opcodes[i] == CONSTANT) {
+                // Constants are broadcast once and shared by every block
+                arrays[i] = new double[block];
+                Arrays.fill(arrays[i], constants[i]);
+            } else if (registers[i] >= 0) {
+                arrays[i] = scratch[registers[i]];
+            }
+        }
+
+        for (int start = 0; start < out.length; start += block) {
+            int length = Math.min(block, out.length - start);
+            for (int i = 0; i < size; i++) {
+                switch (opcodes[i]) {
+                    case CONSTANT:
+                        break;
+                    case VARIABLE:
+                        arrays[i] = columns[lefts[i]];
+                        offsets[i] = start;
+                        break;
+                    default:
+                        if (i == size - 1) {
+                            arrays[i] = out;
+                            offsets[i] = start;
+                        }
+                        apply(opcodes[i], arrays[lefts[i]], offsets[lefts[i]], arrays[rights[i]], offsets[rights[i]],
+                                arrays[i], offsets[i], length, errors, start);
+                        break;
+                }
+            }
+            if (opcodes[size - 1] == CONSTANT || opcodes[size - 1] == VARIABLE) {
+                System.arraycopy(arrays[size - 1], offsets[size - 1], out, start, length);
+            }
+        }
+    }
+
+    /**
+     * Applies one operator to `length` rows. The loops are kept free of calls and
+     * branches so that HotSpot can compile them to SIMD instructions.
+     */
+    private static void apply(byte opcode, double[] x, int xOffset, double[] y, int yOffset,
+            double[] z, int zOffset, int length, boolean[] errors, int row) {
+        switch (opcode) {
+            case ADD:
+                for (int i = 0; i < length; i++) {
+                    z[zOffset + i] = x[xOffset + i] + y[yOffset + i];
+                }
+                break;
+            case SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    z[zOffset + i] = x[xOffset + i] - y[yOffset + i];
+                }
+                break;
+            case MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    z[zOffset + i] = x[xOffset + i] * y[yOffset + i];
+                }
+                break;
+            case DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    if (y[yOffset + i] == 0) {
+                        if (errors == null) {
+                            throw new ArithmeticException("Division by zero at row " + (row + i));
+                        }
+                        errors[row + i] = true;
+                    }
+                }
+                if (errors == null) {
+                    for (int i = 0; i < length; i++) {
+                        z[zOffset + i] = x[xOffset + i] / y[yOffset + i];
+                    }
+                } else {
+                    // z may reuse the register of x or y, so each row reads y before writing z.
+                    // NaN propagates through every later operator, so the final result is NaN too.
+                    for (int i = 0; i < length; i++) {
+                        double divisor = y[yOffset + i];
+                        z[zOffset + i] = divisor == 0 ? Double.NaN : x[xOffset + i] / divisor;
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode: " + opcode);
+        }
+    }
+
+    private double operand(int instruction, double[] values, double[] scratch) {
+        switch (opcodes[instruction]) {
+            case CONSTANT:
+                return constants[instruction];
+            case VARIABLE:
+                return values[lefts[instruction]];
+            default:
+                return scratch[registers[instruction]];
+        }
+    }
+
+    private static double compute(byte opcode, double left, double right) {
+        switch (opcode) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            default:
+                return left / right;
+        }
+    }
+
+    /**
+     * Lists the distinct nodes of a tree or DAG in postfix order without recursion.
+     * A node shared by several parents is listed once, before its first parent.
+     */
+    static List<CompiledExpression.Node> flatten(CompiledExpression.Node root) {
+        List<CompiledExpression.Node> postfix = new ArrayList<>();
+        Set<CompiledExpression.Node> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<CompiledExpression.Node> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<CompiledExpression.Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            CompiledExpression.Node node = pending.peek();
+            if (listed.contains(node)) {
+                pending.pop();
+            } else if (node instanceof CompiledExpression.BinaryOperation && expanded.add(node)) {
+                // Children are listed first; the left one is on top so it comes first
+                CompiledExpression.BinaryOperation operation = (CompiledExpression.BinaryOperation) node;
+                pending.push(operation.right);
+                pending.push(operation.left);
+            } else {
+                pending.pop();
+                listed.add(node);
+                postfix.add(node);
+            }
+        }
+        return postfix;
+    }
+
+    static char operator(byte opcode) {
+        switch (opcode) {
+            case ADD:
+                return '+';
+            case SUBTRACT:
+                return '-';
+            case MULTIPLY:
+                return '*';
+            case DIVIDE:
+                return '/';
+            default:
+                throw new IllegalStateException("Not an operator: " + opcode);
+        }
+    }
+
+    private static byte opcode(char operator) {
+        switch (operator) {
+            case '+':
+                return ADD;
+            case '-':
+                return SUBTRACT;
+            case '*':
+                return MULTIPLY;
+            case '/':
+                return DIVIDE;
+            default:
+                throw new IllegalStateException("Unknown operator: " + operator);
+        }
+    }
+}
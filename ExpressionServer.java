@@ -0,0 +1,429 @@
+package com.amfk.lab12;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local server that evaluates newline-delimited expressions sent over TCP or a Unix
+ * domain socket and answers each with one line: the value formatted like
+ * Double.toString, or "error: " and a message.
+ * 
+ * A single selector thread handles every connection without blocking. All complete
+ * lines that arrive in one round of the selector, from any number of connections, are
+ * evaluated together as one batch using an {@link ExpressionCache}; large batches are
+ * spread over a fork-join pool. Clients may pipeline requests, and responses on each
+ * connection are returned in request order.
+ * 
+ * The server keeps a latency histogram, measured from the moment a request is read
+ * to the moment its response has been handed to the socket, and a request counter.
+ */
+public final class ExpressionServer implements Closeable {
+
+    /** Smallest batch worth evaluating in parallel rather than on the selector thread. */
+    static final int PARALLEL_BATCH_SIZE = 256;
+
+    /** Longest accepted request line; longer lines close the connection. */
+    static final int MAX_LINE_BYTES = 1 << 20;
+
+    /**
+     * Pending output above which a connection is no longer read until its client catches up,
+     * so a client that sends without reading cannot make the server buffer without limit.
+     */
+    static final int MAX_PENDING_OUTPUT_BYTES = 1 << 20;
+
+    /** Most bytes read from one connection per round, so responses are produced in between. */
+    private static final int READ_BYTES_PER_ROUND = 256 * 1024;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final ExpressionCache cache;
+    private final ForkJoinPool pool;
+    private final SocketAddress localAddress;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile boolean running;
+    private Thread thread;
+    private long startNanos;
+
+    /**
+     * Opens a server socket bound to an address. The server does not accept
+     * connections until {@link #start()} is called.
+     * 
+     * @param address an InetSocketAddress for TCP (port 0 picks a free port) or a
+     *        UnixDomainSocketAddress for a Unix domain socket
+     * @param cache the cache of compiled expressions to evaluate with
+     * @param pool the pool used for large batches
+     * @throws IOException if the address cannot be bound
+     */
+    public ExpressionServer(SocketAddress address, ExpressionCache cache, ForkJoinPool pool) throws IOException {
+        this.cache = cache;
+        this.pool = pool;
+        this.server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open();
+        this.server.bind(address);
+        this.server.configureBlocking(false);
+        this.localAddress = server.getLocalAddress();
+        this.selector = Selector.open();
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Starts accepting and serving connections on a background thread.
+     * 
+     * @throws IllegalStateException if the server was already started
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        running = true;
+        startNanos = System.nanoTime();
+        thread = new Thread(this::serve, "expression-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the server and closes every connection. A Unix domain socket file is deleted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        server.close();
+        if (localAddress instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) localAddress).getPath());
+        }
+    }
+
+    /** @return the address the server is bound to, including the chosen port */
+    public SocketAddress localAddress() {
+        return localAddress;
+    }
+
+    /** @return the number of requests answered so far */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    /** @return the number of batches evaluated so far */
+    public long batchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Returns a percentile of the time taken to answer requests.
+     * 
+     * @param percentile the percentile, between 0 and 100 (e.g. 50 or 99)
+     * @return the latency in nanoseconds, within about 6%
+     */
+    public long latencyPercentile(double percentile) {
+        return latencies.percentile(percentile);
+    }
+
+    /** @return the average number of requests answered per second since the server started */
+    public double throughput() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? requests.get() / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExpressionServer[%s, requests=%d, batches=%d, p50=%.1fus, p99=%.1fus, %.0f req/s, %s]",
+                localAddress, requestCount(), batchCount(), latencyPercentile(50) / 1e3, latencyPercentile(99) / 1e3,
+                throughput(), cache);
+    }
+
+    private void serve() {
+        List<Request> batch = new ArrayList<>();
+        Set<Connection> touched = new LinkedHashSet<>();
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.read(batch);
+                            touched.add(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    answer(batch);
+                    batch.clear();
+                }
+                for (Connection connection : touched) {
+                    try {
+                        connection.flush();
+                    } catch (IOException e) {
+                        connection.close();
+                    }
+                }
+                touched.clear();
+            } catch (IOException e) {
+                if (running) {
+                    throw new IllegalStateException("Expression server failed", e);
+                }
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    /**
+     * Evaluates every request read in this round and queues the responses.
+     */
+    private void answer(List<Request> batch) {
+        String[] expressions = new String[batch.size()];
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = batch.get(i).expression;
+        }
+        EvaluationResults results = expressions.length >= PARALLEL_BATCH_SIZE
+                ? cache.evaluateAll(expressions, pool, PARALLEL_BATCH_SIZE / 4)
+                : evaluateInline(expressions);
+        StringBuilder response = new StringBuilder(32);
+        for (int i = 0; i < expressions.length; i++) {
+            response.setLength(0);
+            if (results.failed(i)) {
+                response.append(ExpressionFileEvaluator.ERROR_PREFIX).append(results.error(i).getMessage());
+            } else {
+                response.append(results.value(i));
+            }
+            Request request = batch.get(i);
+            request.connection.respond(response, request.readNanos);
+        }
+        batches.incrementAndGet();
+    }
+
+    private EvaluationResults evaluateInline(String[] expressions) {
+        double[] values = new double[expressions.length];
+        RuntimeException[] errors = new RuntimeException[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            try {
+                values[i] = cache.evaluate(expressions[i]);
+            } catch (RuntimeException e) {
+                values[i] = Double.NaN;
+                errors[i] = e;
+            }
+        }
+        return new EvaluationResults(values, errors);
+    }
+
+    private static final class Request {
+        final Connection connection;
+        final String expression;
+        final long readNanos;
+
+        Request(Connection connection, String expression, long readNanos) {
+            this.connection = connection;
+            this.expression = expression;
+            this.readNanos = readNanos;
+        }
+    }
+
+    /**
+     * The buffers of one client connection.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer input = ByteBuffer.allocate(BUFFER_BYTES);
+        private ByteBuffer output = ByteBuffer.allocate(BUFFER_BYTES);
+        /** Read times of the responses still in the output buffer, oldest first. */
+        private long[] unsent = new long[64];
+        private int unsentCount;
+        private boolean endOfInput;
+        /** Number of bytes at the start of input already known to hold no newline. */
+        private int scanned;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        /**
+         * Reads what is available, up to READ_BYTES_PER_ROUND, and adds every complete line to
+         * the batch, and at the end of input the last line even if it has no newline. Lines are
+         * split out after every read, so only a single unfinished line is held against
+         * MAX_LINE_BYTES however many requests are pipelined.
+         */
+        void read(List<Request> batch) throws IOException {
+            int read;
+            int total = 0;
+            do {
+                read = channel.read(input);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    total += read;
+                }
+                splitLines(batch);
+                if (!input.hasRemaining()) {
+                    // The buffer holds nothing but one unfinished line
+                    if (input.capacity() >= MAX_LINE_BYTES) {
+                        throw new IOException("Request line too long");
+                    }
+                    input = ByteBuffer.allocate(input.capacity() * 2).put(input.flip());
+                }
+            } while (read > 0 && total < READ_BYTES_PER_ROUND);
+        }
+
+        private void splitLines(List<Request> batch) {
+            long now = System.nanoTime();
+            input.flip();
+            int lineStart = 0;
+            for (int i = scanned; i < input.limit(); i++) {
+                if (input.get(i) == '\n') {
+                    int lineEnd = i > lineStart && input.get(i - 1) == '\r' ? i - 1 : i;
+                    String expression = new String(input.array(), lineStart, lineEnd - lineStart, StandardCharsets.ISO_8859_1);
+                    batch.add(new Request(this, expression, now));
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfInput && lineStart < input.limit()) {
+                // The client closed its side after a last line without a newline; answer it too
+                int lineEnd = input.get(input.limit() - 1) == '\r' ? input.limit() - 1 : input.limit();
+                String expression = new String(input.array(), lineStart, lineEnd - lineStart, StandardCharsets.ISO_8859_1);
+                batch.add(new Request(this, expression, now));
+                lineStart = input.limit();
+            }
+            input.position(lineStart);
+            input.compact();
+            scanned = input.position();
+        }
+
+        void respond(CharSequence response, long readNanos) {
+            int needed = response.length() + 1;
+            if (output.remaining() < needed) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(output.capacity() * 2, output.position() + needed));
+                output = larger.put(output.flip());
+            }
+            for (int i = 0; i < response.length(); i++) {
+                output.put((byte) response.charAt(i));
+            }
+            output.put((byte) '\n');
+            if (unsentCount == unsent.length) {
+                unsent = Arrays.copyOf(unsent, unsentCount * 2);
+            }
+            unsent[unsentCount++] = readNanos;
+        }
+
+        /**
+         * Writes as much buffered output as the socket accepts, and waits for the socket
+         * to become writable if some is left. Reading is suspended while more than
+         * MAX_PENDING_OUTPUT_BYTES is left and resumed here once it drains.
+         */
+        void flush() throws IOException {
+            output.flip();
+            channel.write(output);
+            output.compact();
+            if (output.position() == 0) {
+                long now = System.nanoTime();
+                requests.addAndGet(unsentCount);
+                for (int i = 0; i < unsentCount; i++) {
+                    latencies.record(now - unsent[i]);
+                }
+                unsentCount = 0;
+                if (endOfInput) {
+                    close();
+                    return;
+                }
+            }
+            // After the end of input the key would stay readable forever, and while too much
+            // output is pending the client is not read until it catches up
+            int ops = output.position() > 0 ? SelectionKey.OP_WRITE : 0;
+            if (!endOfInput && output.position() < MAX_PENDING_OUTPUT_BYTES) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing more can be done for this client
+            }
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped, printing statistics every ten seconds.
+     * 
+     * @param args a TCP port, or the path of a Unix domain socket to create
+     * @throws IOException if the server cannot be started
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SocketAddress address = args.length > 0 && !args[0].matches("\\d+")
+                ? UnixDomainSocketAddress.of(Path.of(args[0]))
+                : new InetSocketAddress("127.0.0.1", args.length > 0 ? Integer.parseInt(args[0]) : 7878);
+        try (ExpressionServer server = new ExpressionServer(address, ExpressionCache.withMaximumEntries(10000),
+                ForkJoinPool.commonPool())) {
+            server.start();
+            System.out.println("Listening on " + server.localAddress());
+            while (true) {
+                Thread.sleep(10000);
+                System.out.println(server);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+public class ExpressionServerTest {
+
+    @Test
+    void testServer_pipelinedResponsesInOrder() throws IOException {
+        try (ExpressionServer server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0),
+                ExpressionCache.withMaximumEntries(100), ForkJoinPool.commonPool())) {
+            server.start();
+            InetSocketAddress address = (InetSocketAddress) server.localAddress();
+            try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+                OutputStream out = socket.getOutputStream();
+                out.write("3+5*2\n5/0\n3++5\r\n(3+5)*2\n".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                assertEquals("13.0", in.readLine());
+                assertEquals("error: Division by zero", in.readLine());
+                assertTrue(in.readLine().startsWith("error: "));
+                assertEquals("16.0", in.readLine());
+            }
+        }
+    }
+
+    @Test
+    void testServer_lastLineWithoutNewlineIsAnswered() throws IOException {
+        try (ExpressionServer server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0),
+                ExpressionCache.withMaximumEntries(100), ForkJoinPool.commonPool())) {
+            server.start();
+            InetSocketAddress address = (InetSocketAddress) server.localAddress();
+            try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+                OutputStream out = socket.getOutputStream();
+                out.write("1+2\n3*4".getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                socket.shutdownOutput();
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                assertEquals("3.0", in.readLine());
+                assertEquals("12.0", in.readLine());
+                assertNull(in.readLine());
+            }
+        }
+    }
+
+    @Test
+    void testServer_pipelinedRequestsBeyondLineLimit() throws Exception {
+        try (ExpressionServer server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0),
+                ExpressionCache.withMaximumEntries(100), ForkJoinPool.commonPool())) {
+            server.start();
+            InetSocketAddress address = (InetSocketAddress) server.localAddress();
+            // More request bytes than MAX_LINE_BYTES and response bytes than
+            // MAX_PENDING_OUTPUT_BYTES, sent before any response is read
+            int count = 2 * ExpressionServer.MAX_LINE_BYTES / 4;
+            try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+                Thread writer = new Thread(() -> {
+                    try {
+                        OutputStream out = socket.getOutputStream();
+                        byte[] request = "1+1\n".repeat(1024).getBytes(StandardCharsets.US_ASCII);
+                        for (int i = 0; i < count / 1024; i++) {
+                            out.write(request);
+                        }
+                        out.flush();
+                        socket.shutdownOutput();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.start();
+                Thread.sleep(200);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                int responses = 0;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    assertEquals("2.0", line);
+                    responses++;
+                }
+                writer.join();
+                assertEquals(count, responses);
+            }
+        }
+    }
+
+    @Test
+    void testServer_loadGeneratorWithLinesLargerThanBuffers() throws Exception {
+        try (ExpressionServer server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0),
+                ExpressionCache.withMaximumEntries(100), ForkJoinPool.commonPool())) {
+            server.start();
+            // 100 KB requests, and an invalid one whose error response echoes it
+            String valid = "1" + "+1".repeat(50_000);
+            String invalid = "1" + "+1".repeat(50_000) + "+";
+            ExpressionLoadGenerator result = ExpressionLoadGenerator.run(server.localAddress(), 1, 10, 4,
+                    List.of(valid, invalid));
+            assertEquals(10, result.responseCount());
+            assertEquals(5, result.errorCount());
+            assertThrows(IllegalArgumentException.class, () -> ExpressionLoadGenerator.run(server.localAddress(), 1, 1, 1,
+                    List.of("1".repeat(ExpressionServer.MAX_LINE_BYTES))));
+        }
+    }
+
+    @Test
+    void testServer_loadGeneratorOverTcp() throws Exception {
+        try (ExpressionServer server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0),
+                ExpressionCache.withMaximumEntries(100), ForkJoinPool.commonPool())) {
+            server.start();
+            ExpressionLoadGenerator result = ExpressionLoadGenerator.run(server.localAddress(), 4, 5000, 32,
+                    List.of("1+2", "x+1", "(4*5)/2"));
+            assertEquals(20000, result.responseCount());
+            assertTrue(result.errorCount() > 0 && result.errorCount() < 20000);
+            assertTrue(result.latencyPercentile(99) >= result.latencyPercentile(50));
+            assertTrue(result.throughput() > 0);
+            // The server counts a response just after handing it to the socket
+            for (int i = 0; i < 500 && server.requestCount() < 20000; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(20000, server.requestCount());
+            assertTrue(server.batchCount() <= 20000);
+            assertTrue(server.latencyPercentile(99) > 0);
+        }
+    }
+
+    @Test
+    void testServer_unixDomainSocket() throws Exception {
+        Path directory = Files.createTempDirectory("expression-server");
+        Path socket = directory.resolve("server.sock");
+        try (ExpressionServer server = new ExpressionServer(UnixDomainSocketAddress.of(socket),
+                ExpressionCache.withMaximumEntries(100), ForkJoinPool.commonPool())) {
+            server.start();
+            ExpressionLoadGenerator result = ExpressionLoadGenerator.run(server.localAddress(), 2, 1000, 8, List.of("2*3"));
+            assertEquals(2000, result.responseCount());
+            assertEquals(0, result.errorCount());
+        } finally {
+            Files.deleteIfExists(socket);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    void testLatencyHistogram_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500000, histogram.percentile(50), 500000 * 0.07);
+        assertEquals(990000, histogram.percentile(99), 990000 * 0.07);
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+}
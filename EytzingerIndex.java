@@ -0,0 +1,130 @@
+package com.amfk.lab12;
+
+/**
+ * A sorted int array stored in Eytzinger (breadth-first) order: the root of the implicit
+ * binary search tree is at position 1 and the children of node k are at 2k and 2k + 1.
+ * 
+ * A search walks down the tree with a branch-free step, k = 2k + (key < target), so it
+ * has no mispredicted branches. The first levels of the tree share a handful of cache
+ * lines that stay hot, and the two children of a node are adjacent in memory. Java
+ * exposes no prefetch instruction, so the search instead issues an ordinary load of the
+ * node four levels ahead, whose 16 descendants share a cache line, and only inspects the
+ * loaded value at the end; the CPU overlaps that miss with the comparisons on the way
+ * down, which is what a prefetch would achieve.
+ * 
+ * The index holds the keys plus their positions in the sorted array, 8 bytes per key.
+ */
+public final class EytzingerIndex implements SortedIntIndex {
+
+    /** Node indices reach twice the size, so larger arrays would overflow an int. */
+    static final int MAX_SIZE = 1 << 30;
+
+    /** Keys in breadth-first order, starting at index 1. */
+    private final int[] keys;
+    /** Position in the sorted array of the key at the same breadth-first index; size() at 0. */
+    private final int[] ranks;
+    private final int[] sorted;
+    /** Nodes below this index have a descendant four levels down. */
+    private final int prefetchLimit;
+
+    /**
+     * Builds an index over a sorted array.
+     * 
+     * @param sorted the keys in ascending order; the array must not be modified afterwards
+     * 
+     * Preconditions:
+     * - sorted is in ascending order; duplicates are allowed.
+     * - sorted has fewer than 2^30 keys, so node indices do not overflow.
+     */
+    public EytzingerIndex(int[] sorted) {
+        if (sorted.length >= MAX_SIZE) {
+            throw new IllegalArgumentException("Too many keys for an Eytzinger index: " + sorted.length);
+        }
+        this.sorted = sorted;
+        this.keys = new int[sorted.length + 1];
+        this.ranks = new int[sorted.length + 1];
+        this.prefetchLimit = keys.length / 16;
+        this.ranks[0] = sorted.length;
+        build(1, 0);
+    }
+
+    /**
+     * Fills the subtree rooted at node k from the sorted array by an in-order walk.
+     * The recursion depth is the height of the tree, at most 31.
+     * 
+     * @return the next position of the sorted array to place
+     */
+    private int build(int k, int next) {
+        if (k < keys.length) {
+            next = build(2 * k, next);
+            keys[k] = sorted[next];
+            ranks[k] = next++;
+            next = build(2 * k + 1, next);
+        }
+        return next;
+    }
+
+    @Override
+    public int size() {
+        return sorted.length;
+    }
+
+    @Override
+    public int keyAt(int index) {
+        return sorted[index];
+    }
+
+    @Override
+    public int lowerBound(int target) {
+        long walk = descend(target);
+        return keepLoads(walk, ranks[(int) walk]);
+    }
+
+    @Override
+    public int indexOf(int target) {
+        long walk = descend(target);
+        int k = (int) walk;
+        return keepLoads(walk, k != 0 && keys[k] == target ? ranks[k] : -1);
+    }
+
+    @Override
+    public boolean contains(int target) {
+        long walk = descend(target);
+        int k = (int) walk;
+        return keepLoads(walk, k != 0 && keys[k] == target ? 1 : 0) != 0;
+    }
+
+    /**
+     * Walks from the root to a leaf. The low half of the result is the breadth-first index of
+     * the first key not less than target, or 0 if there is none; the high half combines the
+     * keys loaded ahead of the walk.
+     */
+    private long descend(int target) {
+        int[] keys = this.keys;
+        int n = keys.length;
+        int touched = 0;
+        int k = 1;
+        while (k < n) {
+            // Load the first of the 16 descendants four levels down. Nothing depends on the
+            // value until the end of the walk, so the CPU issues the miss early, in parallel
+            // with the comparisons in between; it stands in for a prefetch instruction.
+            touched ^= keys[k < prefetchLimit ? k << 4 : 0];
+            k = 2 * k + (keys[k] < target ? 1 : 0);
+        }
+        // Undo the right turns taken after the last left turn; that left turn was at the answer
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return (long) touched << 32 | k;
+    }
+
+    /**
+     * Returns value unchanged, after checking a condition on the loads made ahead of a walk
+     * that never holds, since node indices are not negative. The check keeps the JIT from
+     * removing the loads without making the result wait for them.
+     */
+    private static int keepLoads(long walk, int value) {
+        if ((((int) walk >> 31) & (int) (walk >>> 32)) != 0) {
+            throw new IllegalStateException("Negative node index");
+        }
+        return value;
+    }
+}
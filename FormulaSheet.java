@@ -0,0 +1,335 @@
+package com.amfk.lab12;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A sheet of named cells holding numbers or formulas that refer to other cells,
+ * e.g. "total" = "price * quantity". Cell names follow the rules for variable names.
+ * 
+ * The sheet keeps a dependency graph between cells. Changing a cell re-evaluates only
+ * the cells downstream of it, each once, in topological order. Cells whose inputs are
+ * all up to date form a level of independent work; large levels are evaluated in
+ * parallel on a fork-join pool. Formulas that would create a cycle are rejected.
+ * 
+ * A sheet may be read and changed by one thread at a time.
+ */
+public final class FormulaSheet {
+
+    /** Smallest level of independent cells worth evaluating in parallel. */
+    static final int PARALLEL_LEVEL_SIZE = 512;
+
+    private static final Cell[] NO_CELLS = new Cell[0];
+
+    private final ForkJoinPool pool;
+    private final Map<String, Cell> cells = new HashMap<>();
+    private int lastRecomputed;
+
+    /**
+     * Creates an empty sheet that evaluates in parallel on the common fork-join pool.
+     */
+    public FormulaSheet() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an empty sheet that evaluates in parallel on the given pool.
+     * 
+     * @param pool the pool used for large levels of independent cells
+     */
+    public FormulaSheet(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets a cell to a number and re-evaluates the cells that depend on it.
+     * 
+     * @param name the name of the cell
+     * @param value the new value of the cell
+     * @throws IllegalArgumentException if name is not a valid cell name
+     */
+    public void setValue(String name, double value) {
+        Cell cell = cell(name);
+        unlink(cell);
+        cell.formula = null;
+        cell.defined = true;
+        cell.value = value;
+        cell.error = null;
+        recompute(cell);
+    }
+
+    /**
+     * Sets a cell to a formula and re-evaluates it and the cells that depend on it.
+     * 
+     * @param name the name of the cell
+     * @param formula an expression whose variables are the names of other cells
+     * @throws IllegalArgumentException if name is not a valid cell name, the formula is
+     *         not well-formed, or the formula would make the cell depend on itself; the
+     *         sheet is unchanged in these cases
+     * 
+     * Postconditions:
+     * - Cells referenced by the formula that have not been set yet make it fail with an
+     *   IllegalStateException until they are set.
+     */
+    public void setFormula(String name, String formula) {
+        checkName(name);
+        CompiledExpression compiled = RecursiveMathParser.compile(formula).optimize();
+        List<String> names = compiled.variables();
+        checkAcyclic(name, names);
+
+        // Only now that the formula is known to be valid are cells created or changed
+        Cell cell = cell(name);
+        Cell[] inputs = new Cell[names.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = cell(names.get(i));
+        }
+        unlink(cell);
+        cell.formula = compiled;
+        cell.inputs = inputs;
+        cell.values = new double[inputs.length];
+        cell.defined = true;
+        for (Cell input : inputs) {
+            input.dependents.add(cell);
+        }
+        recompute(cell);
+    }
+
+    /**
+     * Returns the current value of a cell.
+     * 
+     * @param name the name of the cell
+     * @return the value of the cell, or NaN if it could not be evaluated
+     * @throws IllegalArgumentException if no cell has that name
+     */
+    public double value(String name) {
+        return existing(name).value;
+    }
+
+    /**
+     * Returns why a cell could not be evaluated.
+     * 
+     * @param name the name of the cell
+     * @return the exception that stopped evaluation, such as an ArithmeticException for
+     *         division by zero, including one inherited from an input; null if the cell
+     *         has a value
+     * @throws IllegalArgumentException if no cell has that name
+     */
+    public RuntimeException error(String name) {
+        return existing(name).error;
+    }
+
+    /**
+     * @return the number of cells evaluated by the most recent change, including the
+     *         changed cell itself
+     */
+    public int lastRecomputedCount() {
+        return lastRecomputed;
+    }
+
+    /** @return the number of cells in the sheet, including those only referenced by formulas */
+    int cellCount() {
+        return cells.size();
+    }
+
+    private static void checkName(String name) {
+        if (!ExpressionParser.isIdentifier(name)) {
+            throw new IllegalArgumentException("Invalid cell name: " + name);
+        }
+    }
+
+    private Cell cell(String name) {
+        Cell cell = cells.get(name);
+        if (cell == null) {
+            checkName(name);
+            cell = new Cell(name);
+            cells.put(name, cell);
+        }
+        return cell;
+    }
+
+    private Cell existing(String name) {
+        Cell cell = cells.get(name);
+        if (cell == null || !cell.defined) {
+            throw new IllegalArgumentException("No such cell: " + name);
+        }
+        return cell;
+    }
+
+    private static void unlink(Cell cell) {
+        for (Cell input : cell.inputs) {
+            input.dependents.remove(cell);
+        }
+        cell.inputs = NO_CELLS;
+    }
+
+    /**
+     * Rejects new inputs for a cell if any of them is the cell or lies downstream of it.
+     * Works on names so that nothing is added to the sheet before the check passes.
+     */
+    private void checkAcyclic(String name, List<String> inputs) {
+        Cell cell = cells.get(name);
+        if (cell == null) {
+            // A cell not in the sheet yet has nothing downstream of it but itself
+            if (inputs.contains(name)) {
+                throw new IllegalArgumentException("Formula for " + name + " would create a cycle through " + name);
+            }
+            return;
+        }
+        Set<String> targets = new HashSet<>(inputs);
+        for (Cell downstream : downstreamOf(cell)) {
+            if (targets.contains(downstream.name)) {
+                throw new IllegalArgumentException("Formula for " + name + " would create a cycle through " + downstream.name);
+            }
+        }
+    }
+
+    /**
+     * Lists a cell and every cell that depends on it, directly or indirectly.
+     */
+    private static Set<Cell> downstreamOf(Cell start) {
+        Set<Cell> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Cell> pending = new ArrayDeque<>();
+        reached.add(start);
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            for (Cell dependent : pending.pop().dependents) {
+                if (reached.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Re-evaluates a changed cell and everything downstream of it, level by level.
+     * A cell joins a level once all of its inputs inside the affected set are done.
+     */
+    private void recompute(Cell changed) {
+        Set<Cell> affected = downstreamOf(changed);
+        Map<Cell, Integer> waitingInputs = new IdentityHashMap<>();
+        for (Cell cell : affected) {
+            int count = 0;
+            for (Cell input : cell.inputs) {
+                if (affected.contains(input)) {
+                    count++;
+                }
+            }
+            waitingInputs.put(cell, count);
+        }
+
+        List<Cell> level = new ArrayList<>();
+        level.add(changed);
+        while (!level.isEmpty()) {
+            evaluate(level);
+            List<Cell> next = new ArrayList<>();
+            for (Cell cell : level) {
+                for (Cell dependent : cell.dependents) {
+                    if (waitingInputs.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            level = next;
+        }
+        lastRecomputed = affected.size();
+    }
+
+    private void evaluate(List<Cell> level) {
+        if (level.size() < PARALLEL_LEVEL_SIZE) {
+            for (Cell cell : level) {
+                cell.evaluate();
+            }
+        } else {
+            pool.invoke(new EvaluateLevel(level, 0, level.size()));
+        }
+    }
+
+    /**
+     * Evaluates a range of independent cells, splitting it in halves while it is large.
+     */
+    private static final class EvaluateLevel extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int CHUNK_SIZE = 128;
+
+        private final List<Cell> level;
+        private final int from;
+        private final int to;
+
+        EvaluateLevel(List<Cell> level, int from, int to) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    level.get(i).evaluate();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EvaluateLevel(level, from, middle), new EvaluateLevel(level, middle, to));
+        }
+    }
+
+    private static final class Cell {
+        final String name;
+        final Set<Cell> dependents = new LinkedHashSet<>();
+        CompiledExpression formula;
+        Cell[] inputs = NO_CELLS;
+        double[] values;
+        boolean defined;
+        double value;
+        RuntimeException error;
+
+        Cell(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Evaluates the formula of this cell from the current values of its inputs.
+         * Plain numbers are left as they are.
+         */
+        void evaluate() {
+            if (formula == null) {
+                return;
+            }
+            for (int i = 0; i < inputs.length; i++) {
+                Cell input = inputs[i];
+                if (!input.defined) {
+                    fail(new IllegalStateException("Undefined cell " + input.name));
+                    return;
+                }
+                if (input.error != null) {
+                    fail(input.error);
+                    return;
+                }
+                values[i] = input.value;
+            }
+            try {
+                value = formula.evaluate(values);
+                error = null;
+            } catch (ArithmeticException e) {
+                fail(e);
+            }
+        }
+
+        private void fail(RuntimeException cause) {
+            value = Double.NaN;
+            error = cause;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class FormulaSheetTest {
+
+    @Test
+    void testSetFormula_evaluatesFromInputs() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("price", 2.5);
+        sheet.setValue("quantity", 4);
+        sheet.setFormula("total", "price * quantity");
+        sheet.setFormula("withTax", "total * 1.2");
+        assertEquals(10, sheet.value("total"));
+        assertEquals(12, sheet.value("withTax"));
+    }
+
+    @Test
+    void testSetValue_recomputesOnlyDownstreamCells() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("a", 1);
+        sheet.setValue("b", 2);
+        sheet.setFormula("a2", "a * 2");
+        sheet.setFormula("b2", "b * 2");
+        sheet.setFormula("sum", "a2 + b2");
+        sheet.setValue("a", 10);
+        assertEquals(3, sheet.lastRecomputedCount()); // a, a2, sum
+        assertEquals(24, sheet.value("sum"));
+        assertEquals(4, sheet.value("b2"));
+    }
+
+    @Test
+    void testSetValue_diamondEvaluatesEachCellOnce() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("x", 1);
+        sheet.setFormula("left", "x + 1");
+        sheet.setFormula("right", "x * 3");
+        sheet.setFormula("joined", "left * right");
+        sheet.setValue("x", 2);
+        assertEquals(4, sheet.lastRecomputedCount());
+        assertEquals(18, sheet.value("joined"));
+    }
+
+    @Test
+    void testSetFormula_rejectsCycles() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("a", 1);
+        sheet.setFormula("b", "a + 1");
+        sheet.setFormula("c", "b + 1");
+        assertThrows(IllegalArgumentException.class, () -> sheet.setFormula("a", "c + 1"));
+        assertThrows(IllegalArgumentException.class, () -> sheet.setFormula("d", "d + 1"));
+        assertEquals(3, sheet.value("c"));
+        sheet.setValue("a", 5);
+        assertEquals(7, sheet.value("c"));
+    }
+
+    @Test
+    void testSetFormula_rejectedFormulaLeavesSheetUnchanged() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("a", 1);
+        sheet.setFormula("b", "a + 1");
+        assertEquals(2, sheet.cellCount());
+        assertThrows(IllegalArgumentException.class, () -> sheet.setFormula("c", "a +"));
+        assertThrows(IllegalArgumentException.class, () -> sheet.setFormula("d", "d + unset"));
+        assertThrows(IllegalArgumentException.class, () -> sheet.setFormula("a", "b + unset"));
+        assertThrows(IllegalArgumentException.class, () -> sheet.setFormula("1e", "a"));
+        assertEquals(2, sheet.cellCount());
+        assertThrows(IllegalArgumentException.class, () -> sheet.value("c"));
+        assertThrows(IllegalArgumentException.class, () -> sheet.value("d"));
+        sheet.setValue("a", 5);
+        assertEquals(6, sheet.value("b"));
+        assertEquals(2, sheet.lastRecomputedCount());
+    }
+
+    @Test
+    void testSetFormula_replacingFormulaDropsOldDependencies() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("a", 1);
+        sheet.setValue("b", 2);
+        sheet.setFormula("c", "a + 1");
+        sheet.setFormula("c", "b + 1");
+        sheet.setValue("a", 100);
+        assertEquals(1, sheet.lastRecomputedCount());
+        assertEquals(3, sheet.value("c"));
+        // The old reverse link must not create a false cycle either
+        sheet.setFormula("a", "c * 2");
+        assertEquals(6, sheet.value("a"));
+    }
+
+    @Test
+    void testErrors_propagateAndRecover() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("d", 0);
+        sheet.setFormula("ratio", "1 / d");
+        sheet.setFormula("scaled", "ratio * 10");
+        sheet.setFormula("pending", "missing + 1");
+        assertTrue(sheet.error("scaled") instanceof ArithmeticException);
+        assertTrue(Double.isNaN(sheet.value("scaled")));
+        assertTrue(sheet.error("pending") instanceof IllegalStateException);
+        sheet.setValue("d", 4);
+        assertNull(sheet.error("scaled"));
+        assertEquals(2.5, sheet.value("scaled"));
+        sheet.setValue("missing", 1);
+        assertEquals(2, sheet.value("pending"));
+    }
+
+    @Test
+    void testInvalidNames() {
+        FormulaSheet sheet = new FormulaSheet();
+        assertThrows(IllegalArgumentException.class, () -> sheet.setValue("1a", 1));
+        assertThrows(IllegalArgumentException.class, () -> sheet.value("unknown"));
+    }
+
+    @Test
+    void testLargeFanOutEvaluatedInParallel() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("base", 1);
+        int cells = FormulaSheet.PARALLEL_LEVEL_SIZE * 4;
+        for (int i = 0; i < cells; i++) {
+            sheet.setFormula("c" + i, "base * " + i);
+        }
+        sheet.setValue("base", 3);
+        assertEquals(cells + 1, sheet.lastRecomputedCount());
+        for (int i = 0; i < cells; i++) {
+            assertEquals(3.0 * i, sheet.value("c" + i));
+        }
+    }
+
+    @Test
+    void testLongChain() {
+        FormulaSheet sheet = new FormulaSheet();
+        sheet.setValue("c0", 0);
+        for (int i = 1; i <= 20000; i++) {
+            sheet.setFormula("c" + i, "c" + (i - 1) + " + 1");
+        }
+        sheet.setValue("c0", 5);
+        assertEquals(20005, sheet.value("c20000"));
+    }
+}
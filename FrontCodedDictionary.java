@@ -0,0 +1,304 @@
+package com.amfk.lab12;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable sorted set of strings stored as front-coded UTF-8 bytes, as a compact
+ * replacement for searching a String[] with
+ * {@link RecursiveBinarySearch#binarySearchRecursive(String[], String, int, int)}.
+ * 
+ * Keys are grouped in blocks of BLOCK_SIZE. The first key of a block is stored in full;
+ * every other key is stored as the length of the prefix it shares with the key before it
+ * and the remaining bytes. A lookup binary searches the block heads and then scans one
+ * block, comparing raw bytes; the scan tracks how much of the query has matched so far,
+ * so it never rebuilds the keys it passes.
+ * 
+ * Keys are ordered by their UTF-8 bytes, which is code point order. It matches
+ * String.compareTo except between supplementary characters and U+E000 to U+FFFF.
+ * A key's index is its position in that order.
+ */
+public final class FrontCodedDictionary {
+
+    /** Keys per block: one full key and BLOCK_SIZE - 1 front-coded ones. */
+    static final int BLOCK_SIZE = 16;
+
+    /**
+     * Per-thread buffer that get() decodes into, grown to the longest key seen, so decoding a key
+     * allocates only the returned String. get() never calls back into user code, so a thread is
+     * never inside two decodes at once.
+     */
+    private static final ThreadLocal<byte[]> KEY_SCRATCH = ThreadLocal.withInitial(() -> new byte[64]);
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int size;
+    private final int maxKeyBytes;
+
+    /**
+     * Builds a dictionary from any collection of strings.
+     * 
+     * @param keys the keys, in any order; duplicates are stored once
+     * @throws IllegalArgumentException if the encoded dictionary would exceed 2 GB
+     */
+    public FrontCodedDictionary(Collection<String> keys) {
+        byte[][] encoded = new byte[keys.size()][];
+        int count = 0;
+        for (String key : keys) {
+            encoded[count++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, Arrays::compareUnsigned);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || !Arrays.equals(encoded[unique - 1], encoded[i])) {
+                encoded[unique++] = encoded[i];
+            }
+        }
+        this.size = unique;
+        this.blockOffsets = new int[(unique + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        Encoder encoder = new Encoder();
+        int longest = 0;
+        for (int i = 0; i < unique; i++) {
+            byte[] key = encoded[i];
+            longest = Math.max(longest, key.length);
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = encoder.length;
+                encoder.writeVarint(key.length);
+                encoder.write(key, 0, key.length);
+            } else {
+                byte[] previous = encoded[i - 1];
+                int shared = Arrays.mismatch(previous, key);
+                encoder.writeVarint(shared);
+                encoder.writeVarint(key.length - shared);
+                encoder.write(key, shared, key.length - shared);
+            }
+        }
+        this.data = Arrays.copyOf(encoder.bytes, encoder.length);
+        this.maxKeyBytes = longest;
+    }
+
+    /**
+     * Builds a dictionary from an array of strings.
+     * 
+     * @param keys the keys, in any order; duplicates are stored once
+     * @return the dictionary
+     */
+    public static FrontCodedDictionary of(String... keys) {
+        return new FrontCodedDictionary(Arrays.asList(keys));
+    }
+
+    /** @return the number of distinct keys */
+    public int size() {
+        return size;
+    }
+
+    /** @return the number of bytes held by the encoded keys and the block index */
+    public long sizeInBytes() {
+        return data.length + 4L * blockOffsets.length;
+    }
+
+    /**
+     * Finds the index of a key.
+     * 
+     * @param key the key to search for
+     * @return the index of key, or -1 if it is not in the dictionary
+     */
+    public int indexOf(String key) {
+        long result = search(key.getBytes(StandardCharsets.UTF_8));
+        return (result & 1) != 0 ? (int) (result >>> 1) : -1;
+    }
+
+    /**
+     * @param key the key to search for
+     * @return true if key is in the dictionary
+     */
+    public boolean contains(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Finds the first key that is not less than a target.
+     * 
+     * @param key the target
+     * @return the smallest index whose key is >= key, or size() if there is none
+     */
+    public int lowerBound(String key) {
+        return (int) (search(key.getBytes(StandardCharsets.UTF_8)) >>> 1);
+    }
+
+    /**
+     * Finds every key that starts with a prefix.
+     * 
+     * @param prefix the prefix to match; the empty prefix matches every key
+     * @return the range [from, to) of indices whose keys start with prefix, empty if there are none
+     */
+    public IntRange prefixRange(String prefix) {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        int from = (int) (search(bytes) >>> 1);
+        // Incrementing the last byte gives the smallest byte string above every key that starts
+        // with the prefix, so it serves as an exclusive upper bound under unsigned byte order.
+        // The result need not be valid UTF-8 (a trailing 0x7F or 0xBF becomes 0x80 or 0xC0), as
+        // it is only compared, never decoded. getBytes never emits 0xFF, so the byte cannot wrap.
+        if (bytes.length == 0) {
+            return new IntRange(0, size);
+        }
+        bytes[bytes.length - 1]++;
+        int to = (int) (search(bytes) >>> 1);
+        return new IntRange(from, to);
+    }
+
+    /**
+     * Decodes one key.
+     * 
+     * @param index a position between 0 and size() - 1
+     * @return the key at that position
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        byte[] key = KEY_SCRATCH.get();
+        if (key.length < maxKeyBytes) {
+            key = new byte[Math.max(maxKeyBytes, key.length * 2)];
+            KEY_SCRATCH.set(key);
+        }
+        int position = blockOffsets[index / BLOCK_SIZE];
+        long header = readVarint(position);
+        int length = (int) header;
+        position = (int) (header >>> 32);
+        System.arraycopy(data, position, key, 0, length);
+        position += length;
+        for (int i = index % BLOCK_SIZE; i > 0; i--) {
+            header = readVarint(position);
+            int shared = (int) header;
+            header = readVarint((int) (header >>> 32));
+            int suffix = (int) header;
+            position = (int) (header >>> 32);
+            System.arraycopy(data, position, key, shared, suffix);
+            position += suffix;
+            length = shared + suffix;
+        }
+        return new String(key, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the lower bound of an encoded key.
+     * 
+     * @return the index of the first key >= key, shifted left by one, with the low bit set if
+     *         that key equals key
+     */
+    private long search(byte[] key) {
+        // Number of block heads <= key
+        int low = 0;
+        int high = blockOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int position = blockOffsets[mid];
+            long header = readVarint(position);
+            int start = (int) (header >>> 32);
+            if (Arrays.compareUnsigned(data, start, start + (int) header, key, 0, key.length) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+        int block = low - 1;
+        int index = block * BLOCK_SIZE;
+        long header = readVarint(blockOffsets[block]);
+        int position = (int) (header >>> 32);
+        int length = (int) header;
+        int matched = Arrays.mismatch(data, position, position + length, key, 0, key.length);
+        if (matched < 0) {
+            return (long) index << 1 | 1;
+        }
+        position += length;
+        int end = Math.min(index + BLOCK_SIZE, size);
+        // Invariant: the previous key is less than key and shares exactly matched bytes with it
+        for (index++; index < end; index++) {
+            header = readVarint(position);
+            int shared = (int) header;
+            header = readVarint((int) (header >>> 32));
+            int suffix = (int) header;
+            position = (int) (header >>> 32);
+            if (shared < matched) {
+                // This key differs from the previous one where that one still matched key: it is larger
+                return (long) index << 1;
+            }
+            if (shared == matched) {
+                int mismatch = Arrays.mismatch(data, position, position + suffix, key, matched, key.length);
+                if (mismatch < 0) {
+                    return (long) index << 1 | 1;
+                }
+                if (matched + mismatch == key.length) {
+                    // key is a proper prefix of this key
+                    return (long) index << 1;
+                }
+                if (mismatch < suffix && (data[position + mismatch] & 0xFF) > (key[matched + mismatch] & 0xFF)) {
+                    return (long) index << 1;
+                }
+                matched += mismatch;
+            }
+            // With shared > matched the key repeats the smaller byte of the previous key
+            position += suffix;
+        }
+        return (long) end << 1;
+    }
+
+    /**
+     * Reads a variable-length int at a position.
+     * 
+     * @return the value in the low 32 bits and the position after it in the high 32 bits
+     */
+    private long readVarint(int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (long) position << 32 | (value & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public String toString() {
+        return "FrontCodedDictionary[" + size + " keys, " + sizeInBytes() + " bytes]";
+    }
+
+    /** A growable byte buffer for building the encoded keys. */
+    private static final class Encoder {
+        byte[] bytes = new byte[1024];
+        int length;
+
+        void write(byte[] source, int from, int count) {
+            ensureCapacity(count);
+            System.arraycopy(source, from, bytes, length, count);
+            length += count;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            long needed = (long) length + extra;
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Dictionary exceeds 2 GB of encoded keys");
+            }
+            if (needed > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(needed, 2L * bytes.length)));
+            }
+        }
+    }
+}
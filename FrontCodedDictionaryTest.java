@@ -0,0 +1,151 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FrontCodedDictionaryTest {
+
+    private static final String[] PARTS = {"a", "ab", "abc", "b", "ba", "\u00E9", "\u00FC", "z", "/", "", "\u65E5\u672C"};
+
+    private static List<String> randomKeys(Random random, int count) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder key = new StringBuilder();
+            int parts = random.nextInt(5);
+            for (int j = 0; j < parts; j++) {
+                key.append(PARTS[random.nextInt(PARTS.length)]);
+            }
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
+    @Test
+    void testLookups_matchSortedArray() {
+        Random random = new Random(17);
+        List<String> keys = randomKeys(random, 3000);
+        FrontCodedDictionary dictionary = new FrontCodedDictionary(keys);
+        // Without supplementary characters, String order is UTF-8 byte order
+        String[] sorted = new TreeSet<>(keys).toArray(new String[0]);
+        assertEquals(sorted.length, dictionary.size());
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(sorted[i], dictionary.get(i));
+            assertEquals(i, dictionary.indexOf(sorted[i]));
+        }
+        for (String probe : randomKeys(random, 3000)) {
+            int expected = 0;
+            while (expected < sorted.length && sorted[expected].compareTo(probe) < 0) {
+                expected++;
+            }
+            assertEquals(expected, dictionary.lowerBound(probe), probe);
+            boolean present = expected < sorted.length && sorted[expected].equals(probe);
+            assertEquals(present ? expected : -1, dictionary.indexOf(probe + ""), probe);
+            assertEquals(present, dictionary.contains(probe));
+        }
+    }
+
+    @Test
+    void testPrefixRange() {
+        FrontCodedDictionary dictionary = FrontCodedDictionary.of("apple", "applet", "application", "apply", "apricot",
+                "banana", "band", "bandana", "can", "\u65E5\u672C", "\u65E5\u672C\u8A9E");
+        assertEquals(new IntRange(0, 4), dictionary.prefixRange("appl"));
+        assertEquals(new IntRange(1, 2), dictionary.prefixRange("applet"));
+        assertEquals(new IntRange(6, 8), dictionary.prefixRange("band"));
+        assertEquals(new IntRange(9, 11), dictionary.prefixRange("\u65E5"));
+        assertEquals(new IntRange(0, 11), dictionary.prefixRange(""));
+        assertTrue(dictionary.prefixRange("bb").isEmpty());
+        assertEquals(8, dictionary.prefixRange("bb").from());
+        assertTrue(dictionary.prefixRange("zzz").isEmpty());
+    }
+
+    @Test
+    void testPrefixRange_multiByteLastCharacter() {
+        // The prefixes end in bytes 0x7F and 0xBF, whose increments are not valid UTF-8
+        FrontCodedDictionary dictionary = FrontCodedDictionary.of("\u007F", "\u007Fz", "\u0080", "\u00BE", "\u00BF",
+                "\u00BFa", "\u00BF\u00BF", "\u00C0", "\u0FFF", "\u0FFFa", "\u1000");
+        assertEquals(new IntRange(0, 2), dictionary.prefixRange("\u007F"));
+        assertEquals(new IntRange(4, 7), dictionary.prefixRange("\u00BF"));
+        assertEquals(new IntRange(6, 7), dictionary.prefixRange("\u00BF\u00BF"));
+        assertEquals(new IntRange(7, 8), dictionary.prefixRange("\u00C0"));
+        assertEquals(new IntRange(8, 10), dictionary.prefixRange("\u0FFF"));
+        assertEquals("\u00BF\u00BF", dictionary.get(6));
+    }
+
+    @Test
+    void testGet_sharedBufferIsPerThread() throws InterruptedException {
+        Random random = new Random(29);
+        FrontCodedDictionary shortKeys = new FrontCodedDictionary(randomKeys(random, 500));
+        List<String> longKeys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            longKeys.add("x".repeat(200 + i));
+        }
+        FrontCodedDictionary longDictionary = new FrontCodedDictionary(longKeys);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    // Alternate dictionaries of different key lengths on the same thread
+                    int index = i % shortKeys.size();
+                    if (shortKeys.indexOf(shortKeys.get(index)) != index) {
+                        wrong.incrementAndGet();
+                    }
+                    if (i % 50 == 0 && longDictionary.get(i % 100).length() != 200 + i % 100) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void testPrefixRange_acrossManyBlocks() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(String.format("user/%04d/profile", i));
+        }
+        keys.add("user");
+        keys.add("users");
+        FrontCodedDictionary dictionary = new FrontCodedDictionary(keys);
+        IntRange range = dictionary.prefixRange("user/01");
+        assertEquals(100, range.size());
+        assertEquals("user/0100/profile", dictionary.get(range.from()));
+        assertEquals("user/0199/profile", dictionary.get(range.to() - 1));
+        assertEquals(1001, dictionary.prefixRange("user/").to());
+        assertEquals(1, dictionary.prefixRange("user/").from());
+        assertTrue(dictionary.sizeInBytes() < 1000 * "user/0000/profile".length() * 3 / 4);
+    }
+
+    @Test
+    void testDuplicatesEmptyAndOutOfRange() {
+        FrontCodedDictionary dictionary = FrontCodedDictionary.of("b", "a", "b", "", "a");
+        assertEquals(3, dictionary.size());
+        assertEquals(0, dictionary.indexOf(""));
+        assertEquals("b", dictionary.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> dictionary.get(3));
+        FrontCodedDictionary empty = FrontCodedDictionary.of();
+        assertEquals(-1, empty.indexOf("a"));
+        assertEquals(0, empty.lowerBound("a"));
+        assertEquals(new IntRange(0, 0), empty.prefixRange("a"));
+    }
+
+    @Test
+    void testSupplementaryCharactersUseCodePointOrder() {
+        String emoji = "\uD83D\uDE00";
+        String privateUse = "\uE000";
+        FrontCodedDictionary dictionary = FrontCodedDictionary.of(emoji, privateUse);
+        assertEquals(0, dictionary.indexOf(privateUse));
+        assertEquals(1, dictionary.indexOf(emoji));
+    }
+}
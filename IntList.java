@@ -0,0 +1,133 @@
+package com.amfk.lab12;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive ints, used by the search APIs of {@link RecursiveBinarySearch}
+ * in place of List&lt;Integer&gt; so that indices are never boxed. A list can be passed back in
+ * as the buffer of the next query; it is cleared and refilled, and its storage is reused, so
+ * repeated queries of similar size allocate nothing.
+ */
+public final class IntList {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] elements;
+    private int size;
+
+    /** Creates an empty list. */
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list that holds capacity elements before it has to grow.
+     * 
+     * @param capacity the initial capacity, at least 0
+     */
+    public IntList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.elements = new int[capacity];
+    }
+
+    /** @return the number of elements */
+    public int size() {
+        return size;
+    }
+
+    /** @return true if the list has no elements */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index a position between 0 and size() - 1
+     * @return the element at that position
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return elements[index];
+    }
+
+    /**
+     * Appends one element.
+     * 
+     * @param value the element to append
+     */
+    public void add(int value) {
+        ensureCapacity(size + 1);
+        elements[size++] = value;
+    }
+
+    /**
+     * Appends every index of a range, in ascending order.
+     * 
+     * @param range the indices to append
+     */
+    public void addRange(IntRange range) {
+        ensureCapacity(size + range.size());
+        for (int i = range.from(); i < range.to(); i++) {
+            elements[size++] = i;
+        }
+    }
+
+    /** Removes every element, keeping the storage for reuse. */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Grows the storage so that it holds at least capacity elements.
+     * 
+     * @param capacity the number of elements to make room for
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            int grown = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, 2L * elements.length));
+            if (grown < capacity) {
+                throw new OutOfMemoryError("IntList cannot hold " + capacity + " elements");
+            }
+            elements = Arrays.copyOf(elements, grown);
+        }
+    }
+
+    /** @return a new array holding the elements in order */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof IntList)) {
+            return false;
+        }
+        IntList list = (IntList) other;
+        return Arrays.equals(elements, 0, size, list.elements, 0, list.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + elements[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(elements[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class IntListTest {
+
+    @Test
+    void testAddGrowAndGet() {
+        IntList list = new IntList(0);
+        assertTrue(list.isEmpty());
+        for (int i = 0; i < 100; i++) {
+            list.add(i * i);
+        }
+        assertEquals(100, list.size());
+        assertEquals(81, list.get(9));
+        assertEquals(9801, list.toArray()[99]);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(100));
+        assertThrows(IllegalArgumentException.class, () -> new IntList(-1));
+    }
+
+    @Test
+    void testAddRangeAndEquality() {
+        IntList list = new IntList();
+        list.add(-1);
+        list.addRange(new IntRange(3, 6));
+        assertEquals("[-1, 3, 4, 5]", list.toString());
+        IntList other = new IntList(1);
+        other.add(-1);
+        other.add(3);
+        other.add(4);
+        other.add(5);
+        assertEquals(other, list);
+        assertEquals(other.hashCode(), list.hashCode());
+        list.clear();
+        assertEquals(0, list.size());
+        assertEquals("[]", list.toString());
+    }
+
+    @Test
+    void testBinarySearchAllIndices_reusesBuffer() {
+        int[] array = {1, 2, 2, 2, 3, 3, 4};
+        IntList buffer = RecursiveBinarySearch.binarySearchAllIndices(array, 2, 0, array.length - 1, null);
+        assertArrayEquals(new int[] {1, 2, 3}, buffer.toArray());
+        IntList again = RecursiveBinarySearch.binarySearchAllIndices(array, 3, 0, array.length - 1, buffer);
+        assertSame(buffer, again);
+        assertArrayEquals(new int[] {4, 5}, again.toArray());
+        RecursiveBinarySearch.binarySearchAllIndices(array, 9, 0, array.length - 1, buffer);
+        assertTrue(buffer.isEmpty());
+        RecursiveBinarySearch.binarySearchAllIndices(array, 2, 2, 5, buffer);
+        assertArrayEquals(new int[] {2, 3}, buffer.toArray());
+    }
+}
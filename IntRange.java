@@ -0,0 +1,76 @@
+package com.amfk.lab12;
+
+/**
+ * An immutable half-open range of array indices [from, to), as returned by the range
+ * searches of {@link RecursiveBinarySearch}. It stands for every index in between
+ * without storing them, so a query that matches a million duplicates costs one object.
+ */
+public final class IntRange {
+
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates a range.
+     * 
+     * @param from the first index in the range
+     * @param to one past the last index in the range
+     * 
+     * Preconditions:
+     * - from <= to; from == to describes an empty range.
+     */
+    public IntRange(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Invalid range [" + from + ", " + to + ")");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /** @return the first index in the range, or the insertion point if the range is empty */
+    public int from() {
+        return from;
+    }
+
+    /** @return one past the last index in the range */
+    public int to() {
+        return to;
+    }
+
+    /** @return the number of indices in the range */
+    public int size() {
+        return to - from;
+    }
+
+    /** @return true if the range holds no indices */
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    /**
+     * @param index an array index
+     * @return true if from <= index < to
+     */
+    public boolean contains(int index) {
+        return index >= from && index < to;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof IntRange)) {
+            return false;
+        }
+        IntRange range = (IntRange) other;
+        return from == range.from && to == range.to;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * from + to;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ", " + to + ")";
+    }
+}
@@ -0,0 +1,142 @@
+package com.amfk.lab12;
+
+import java.util.Arrays;
+
+/**
+ * A learned index over a sorted int array: a piecewise-linear model that predicts the
+ * position of a key to within a fixed error, after the PGM index. A lookup picks the
+ * segment covering the key with a binary search over the first key of every segment,
+ * evaluates its line, and finishes with a bounded binary search of the 2 * error + 1
+ * positions around the prediction.
+ * 
+ * The segments are fitted in one pass with the shrinking-cone algorithm: a segment
+ * starts at a key and grows while some line through that key stays within the error of
+ * the first position of every key added since. Near-uniform data needs a handful of
+ * segments, so the model fits in cache and the lookup touches one or two cache lines of
+ * the array; skewed data needs more segments, see {@link SortedIntIndex#of(int[])}.
+ * 
+ * The index searches the given array in place and adds 16 bytes per segment.
+ */
+public final class LearnedIntIndex implements SortedIntIndex {
+
+    /** Default maximum distance between a predicted and an actual position. */
+    static final int DEFAULT_ERROR = 32;
+
+    private final int[] sorted;
+    private final int error;
+    private final int[] firstKeys;
+    private final int[] firstPositions;
+    private final double[] slopes;
+
+    /**
+     * Builds an index with the default error of 32 positions.
+     * 
+     * @param sorted the keys in ascending order; the array must not be modified afterwards
+     * 
+     * Preconditions:
+     * - sorted is in ascending order; duplicates are allowed.
+     */
+    public LearnedIntIndex(int[] sorted) {
+        this(sorted, DEFAULT_ERROR);
+    }
+
+    /**
+     * Builds an index whose predictions are off by at most error positions.
+     * 
+     * @param sorted the keys in ascending order; the array must not be modified afterwards
+     * @param error the maximum prediction error, at least 1; smaller errors need more segments
+     *        but search a smaller window
+     * @throws IllegalArgumentException if error is less than 1
+     * 
+     * Preconditions:
+     * - sorted is in ascending order; duplicates are allowed.
+     */
+    public LearnedIntIndex(int[] sorted, int error) {
+        if (error < 1) {
+            throw new IllegalArgumentException("Error must be at least 1: " + error);
+        }
+        this.sorted = sorted;
+        this.error = error;
+        int n = sorted.length;
+        // Segments are few, so collect them in growable arrays rather than in scratch the size of the keys
+        IntList keys = new IntList();
+        IntList positions = new IntList();
+        double[] lines = new double[16];
+        int count = 0;
+        int i = 0;
+        while (i < n) {
+            // Start a segment at the first occurrence of sorted[i]
+            int startKey = sorted[i];
+            int startPosition = i;
+            double low = 0;
+            double high = Double.POSITIVE_INFINITY;
+            while (i < n && sorted[i] == startKey) {
+                i++;
+            }
+            while (i < n) {
+                int key = sorted[i];
+                double dx = (double) key - startKey;
+                double dy = i - startPosition;
+                double newLow = Math.max(low, (dy - error) / dx);
+                double newHigh = Math.min(high, (dy + error) / dx);
+                if (newLow > newHigh) {
+                    break;
+                }
+                low = newLow;
+                high = newHigh;
+                while (i < n && sorted[i] == key) {
+                    i++;
+                }
+            }
+            keys.add(startKey);
+            positions.add(startPosition);
+            if (count == lines.length) {
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            lines[count] = high == Double.POSITIVE_INFINITY ? low : (low + high) / 2;
+            count++;
+        }
+        this.firstKeys = keys.toArray();
+        this.firstPositions = positions.toArray();
+        this.slopes = Arrays.copyOf(lines, count);
+    }
+
+    /** @return the number of linear segments of the model */
+    public int segmentCount() {
+        return firstKeys.length;
+    }
+
+    @Override
+    public int size() {
+        return sorted.length;
+    }
+
+    @Override
+    public int keyAt(int index) {
+        return sorted[index];
+    }
+
+    @Override
+    public int lowerBound(int target) {
+        int n = sorted.length;
+        int segments = firstKeys.length;
+        if (segments == 0 || target <= firstKeys[0]) {
+            return 0;
+        }
+        // The last segment whose first key is below target; target > firstKeys[0] makes it exist
+        int segment = RecursiveBinarySearch.lowerBoundBranchless(firstKeys, target, 0, segments) - 1;
+        double predicted = firstPositions[segment] + slopes[segment] * ((double) target - firstKeys[segment]);
+        int from = (int) Math.max(firstPositions[segment] + 1, Math.min(n, predicted - error - 1));
+        int to = (int) Math.min(n, Math.max(from, predicted + error + 2));
+        int index = from < to ? RecursiveBinarySearch.lowerBoundBranchless(sorted, target, from, to) : from;
+        // The model bounds the error at the keys it was fitted to; verify the answer and widen if
+        // rounding put it outside the window
+        if (index == from && sorted[from - 1] >= target) {
+            return RecursiveBinarySearch.lowerBoundBranchless(sorted, target, firstPositions[segment] + 1, from);
+        }
+        if (index == to && to < n) {
+            return BatchSearch.gallop(sorted, target, to);
+        }
+        return index;
+    }
+}
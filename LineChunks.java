@@ -0,0 +1,73 @@
+package com.amfk.lab12;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Helpers for splitting a file of newline-terminated lines into chunks that start
+ * and end on line boundaries, so each chunk can be processed independently.
+ */
+final class LineChunks {
+
+    /** Number of bytes read at a time while looking for the end of a line. */
+    private static final int PROBE_SIZE = 8192;
+
+    private LineChunks() {
+    }
+
+    /**
+     * Finds the first line that starts at or after a position.
+     * 
+     * @param channel the file to scan
+     * @param position a byte offset in the file
+     * @param size the size of the file
+     * @return position if a line starts there, otherwise the offset just after the next
+     *         '\n', or size if there is none
+     * @throws IOException if the file cannot be read
+     */
+    static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= size) {
+            return size;
+        }
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long offset = position - 1;
+        while (offset < size) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the end of a chunk of roughly chunkBytes bytes starting at a line start.
+     * 
+     * @param channel the file to scan
+     * @param start the start of the chunk, which must be a line start
+     * @param chunkBytes the target size of the chunk
+     * @param size the size of the file
+     * @return the start of the first line at or after start + chunkBytes, never more
+     *         than Integer.MAX_VALUE bytes after start so the chunk can be mapped
+     * @throws IOException if the file cannot be read
+     * @throws IllegalStateException if a single line is longer than Integer.MAX_VALUE bytes
+     */
+    static long chunkEnd(FileChannel channel, long start, int chunkBytes, long size) throws IOException {
+        long end = nextLineStart(channel, Math.min(size, start + chunkBytes), size);
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Line starting before offset " + end + " is too long to map");
+        }
+        return end;
+    }
+}
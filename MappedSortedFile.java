@@ -0,0 +1,320 @@
+package com.amfk.lab12;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A sorted file of little-endian ints or longs searched in place through memory mapping, for
+ * key sets that do not fit in the heap. It offers the lower/upper bound searches of
+ * {@link RecursiveBinarySearch} with long indices.
+ * 
+ * A single MappedByteBuffer covers at most 2 GB, so the file is mapped as a sequence of
+ * segments of 1 GB. The first key of every 64 KB of the file is copied into an in-heap sample
+ * array when the file is opened; a search first runs over the samples and only then reads the
+ * file, inside one 64 KB window, so the upper levels of the search never touch cold pages.
+ * The samples take 8 bytes per 64 KB of file, 1/8192 of its size.
+ * 
+ * Instances are safe for concurrent searches, also with a concurrent close(): a search either
+ * completes or throws IllegalStateException. The mappings stay valid until the instance is
+ * garbage collected; Java 17 offers no way to unmap them earlier.
+ */
+public final class MappedSortedFile implements Closeable {
+
+    /** Bytes per mapped segment; a power of two so that an element never straddles two segments. */
+    static final int SEGMENT_BYTES = 1 << 30;
+    /** Bytes of file covered by one in-heap sample. */
+    static final int SAMPLE_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final int elementShift;
+    private final int segmentShift;
+    private final long segmentMask;
+    private final long size;
+    private final int samplesPerWindow;
+    private final long[] samples;
+    /** The mappings, or null once closed; each search reads the field once. */
+    private volatile MappedByteBuffer[] segments;
+
+    private MappedSortedFile(Path path, int elementBytes, int segmentBytes, int sampleBytes) throws IOException {
+        if (Integer.bitCount(segmentBytes) != 1 || segmentBytes < elementBytes || sampleBytes < elementBytes) {
+            throw new IllegalArgumentException("Invalid segment size " + segmentBytes + " or sample size " + sampleBytes);
+        }
+        this.path = path;
+        this.elementShift = Integer.numberOfTrailingZeros(elementBytes);
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentBytes);
+        this.segmentMask = segmentBytes - 1;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long bytes = channel.size();
+            if ((bytes & (elementBytes - 1)) != 0) {
+                throw new IllegalArgumentException(
+                        "Size of " + path + " (" + bytes + " bytes) is not a multiple of " + elementBytes);
+            }
+            this.size = bytes >>> elementShift;
+            this.segments = new MappedByteBuffer[(int) ((bytes + segmentMask) >>> segmentShift)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << segmentShift;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segmentBytes, bytes - start));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        this.samplesPerWindow = sampleBytes >>> elementShift;
+        this.samples = new long[(int) ((size + samplesPerWindow - 1) / samplesPerWindow)];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = read(segments, (long) i * samplesPerWindow);
+        }
+    }
+
+    /**
+     * Opens a file of sorted little-endian 4-byte ints.
+     * 
+     * @param path the file, e.g. one written by {@link #intBuilder(Path)}
+     * @return the mapped file
+     * @throws IOException if the file cannot be read or mapped
+     * @throws IllegalArgumentException if the file size is not a multiple of 4
+     * 
+     * Preconditions:
+     * - The file holds ints in ascending order; duplicates are allowed.
+     */
+    public static MappedSortedFile openInts(Path path) throws IOException {
+        return new MappedSortedFile(path, Integer.BYTES, SEGMENT_BYTES, SAMPLE_BYTES);
+    }
+
+    /**
+     * Opens a file of sorted little-endian 8-byte longs.
+     * 
+     * @param path the file, e.g. one written by {@link #longBuilder(Path)}
+     * @return the mapped file
+     * @throws IOException if the file cannot be read or mapped
+     * @throws IllegalArgumentException if the file size is not a multiple of 8
+     * 
+     * Preconditions:
+     * - The file holds longs in ascending order; duplicates are allowed.
+     */
+    public static MappedSortedFile openLongs(Path path) throws IOException {
+        return new MappedSortedFile(path, Long.BYTES, SEGMENT_BYTES, SAMPLE_BYTES);
+    }
+
+    /** Opens a file with a custom layout, so tests can cover many segments with small files. */
+    static MappedSortedFile open(Path path, int elementBytes, int segmentBytes, int sampleBytes) throws IOException {
+        return new MappedSortedFile(path, elementBytes, segmentBytes, sampleBytes);
+    }
+
+    /** @return the number of keys in the file */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns one key of the file.
+     * 
+     * @param index a position between 0 and size() - 1
+     * @return the key at that position, widened to a long for int files
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public long get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return read(openSegments(), index);
+    }
+
+    /**
+     * Returns the mappings for one search. A search that overlaps close() keeps the mappings it
+     * read, which stay valid while it holds them, so it either completes or throws here.
+     */
+    private MappedByteBuffer[] openSegments() {
+        MappedByteBuffer[] current = segments;
+        if (current == null) {
+            throw new IllegalStateException(path + " is closed");
+        }
+        return current;
+    }
+
+    private long read(MappedByteBuffer[] segments, long index) {
+        long offset = index << elementShift;
+        MappedByteBuffer segment = segments[(int) (offset >>> segmentShift)];
+        int position = (int) (offset & segmentMask);
+        return elementShift == 2 ? segment.getInt(position) : segment.getLong(position);
+    }
+
+    /**
+     * Finds the first position whose key is not less than a target.
+     * 
+     * @param target the value to search for
+     * @return the smallest index i such that get(i) >= target, or size() if there is none
+     */
+    public long lowerBound(long target) {
+        return bound(openSegments(), target, false);
+    }
+
+    /**
+     * Finds the first position whose key is greater than a target.
+     * 
+     * @param target the value to search for
+     * @return the smallest index i such that get(i) > target, or size() if there is none
+     */
+    public long upperBound(long target) {
+        return bound(openSegments(), target, true);
+    }
+
+    /**
+     * Finds the first position of a target.
+     * 
+     * @param target the value to search for
+     * @return the index of the first occurrence of target, or -1 if it is absent
+     */
+    public long indexOf(long target) {
+        MappedByteBuffer[] segments = openSegments();
+        long index = bound(segments, target, false);
+        return index < size && read(segments, index) == target ? index : -1;
+    }
+
+    /**
+     * Searches the in-heap samples for the window that holds the answer, then that window of the
+     * file. With strict set, keys equal to target count as smaller than it.
+     */
+    private long bound(MappedByteBuffer[] segments, long target, boolean strict) {
+        // Number of samples before the answer; the answer lies after the last of them
+        int base = 0;
+        int length = samples.length;
+        while (length > 0) {
+            int half = length >>> 1;
+            boolean before = strict ? samples[base + half] <= target : samples[base + half] < target;
+            base = before ? base + half + 1 : base;
+            length = before ? length - half - 1 : half;
+        }
+        if (base == 0) {
+            return 0;
+        }
+        // Keys in (sample base - 1, sample base] of the file; the sample itself is known to qualify
+        long from = (long) (base - 1) * samplesPerWindow + 1;
+        long to = Math.min((long) base * samplesPerWindow, size);
+        long count = to - from;
+        while (count > 0) {
+            long half = count >>> 1;
+            long key = read(segments, from + half);
+            boolean before = strict ? key <= target : key < target;
+            from = before ? from + half + 1 : from;
+            count = before ? count - half - 1 : half;
+        }
+        return from;
+    }
+
+    /**
+     * Drops the mappings; searches that start afterwards throw IllegalStateException. May be
+     * called while other threads search.
+     */
+    @Override
+    public void close() {
+        segments = null;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedSortedFile[" + path + ", " + size + " keys of " + (1 << elementShift) + " bytes, "
+                + samples.length + " samples]";
+    }
+
+    /**
+     * Creates a builder that writes sorted ints to a new file, replacing any existing one.
+     * 
+     * @param path the file to write
+     * @return the builder; close it to finish the file
+     * @throws IOException if the file cannot be created
+     */
+    public static Builder intBuilder(Path path) throws IOException {
+        return new Builder(path, Integer.BYTES);
+    }
+
+    /**
+     * Creates a builder that writes sorted longs to a new file, replacing any existing one.
+     * 
+     * @param path the file to write
+     * @return the builder; close it to finish the file
+     * @throws IOException if the file cannot be created
+     */
+    public static Builder longBuilder(Path path) throws IOException {
+        return new Builder(path, Long.BYTES);
+    }
+
+    /**
+     * Writes a stream of ascending keys to a file that {@link MappedSortedFile} can open,
+     * through a fixed-size buffer, so files of any size are written in constant memory.
+     */
+    public static final class Builder implements Closeable {
+
+        private static final int BUFFER_BYTES = 1 << 16;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final int elementBytes;
+        private long count;
+        private long last;
+
+        private Builder(Path path, int elementBytes) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.elementBytes = elementBytes;
+        }
+
+        /**
+         * Appends one key.
+         * 
+         * @param key the key; for an int file it must fit in an int
+         * @return this builder
+         * @throws IOException if the file cannot be written
+         * @throws IllegalArgumentException if key is smaller than the previous key, or out of
+         *         range for an int file
+         */
+        public Builder add(long key) throws IOException {
+            if (count > 0 && key < last) {
+                throw new IllegalArgumentException("Key " + key + " after " + last + " is out of order");
+            }
+            if (elementBytes == Integer.BYTES && (int) key != key) {
+                throw new IllegalArgumentException("Key " + key + " does not fit in an int");
+            }
+            if (buffer.remaining() < elementBytes) {
+                flush();
+            }
+            if (elementBytes == Integer.BYTES) {
+                buffer.putInt((int) key);
+            } else {
+                buffer.putLong(key);
+            }
+            last = key;
+            count++;
+            return this;
+        }
+
+        /** @return the number of keys added so far */
+        public long count() {
+            return count;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /** Writes any buffered keys and closes the file. */
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                try {
+                    flush();
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MappedSortedFileTest {
+
+    private static int lowerBound(long[] keys, long target, boolean strict) {
+        int i = 0;
+        while (i < keys.length && (strict ? keys[i] <= target : keys[i] < target)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void assertMatchesArray(MappedSortedFile file, long[] keys, long[] targets) {
+        assertEquals(keys.length, file.size());
+        for (long target : targets) {
+            int lower = lowerBound(keys, target, false);
+            assertEquals(lower, file.lowerBound(target), "lowerBound " + target);
+            assertEquals(lowerBound(keys, target, true), file.upperBound(target), "upperBound " + target);
+            assertEquals(lower < keys.length && keys[lower] == target ? lower : -1, file.indexOf(target));
+        }
+    }
+
+    private static long[] sortedKeys(Random random, int count, long bound) {
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = (long) (random.nextDouble() * bound) - bound / 2;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static long[] targets(long[] keys) {
+        long[] targets = new long[keys.length * 2 + 4];
+        for (int i = 0; i < keys.length; i++) {
+            targets[2 * i] = keys[i];
+            targets[2 * i + 1] = keys[i] + 1;
+        }
+        targets[targets.length - 4] = Long.MIN_VALUE;
+        targets[targets.length - 3] = Long.MAX_VALUE;
+        targets[targets.length - 2] = keys.length == 0 ? 0 : keys[0] - 1;
+        targets[targets.length - 1] = Integer.MIN_VALUE;
+        return targets;
+    }
+
+    @Test
+    void testInts_manySmallSegmentsAndWindows() throws IOException {
+        Path path = Files.createTempFile("sorted", ".ints");
+        try {
+            long[] keys = sortedKeys(new Random(16), 3000, 4000);
+            try (MappedSortedFile.Builder builder = MappedSortedFile.intBuilder(path)) {
+                for (long key : keys) {
+                    builder.add(key);
+                }
+                assertEquals(keys.length, builder.count());
+            }
+            assertEquals(keys.length * 4L, Files.size(path));
+            try (MappedSortedFile file = MappedSortedFile.open(path, Integer.BYTES, 64, 32)) {
+                assertMatchesArray(file, keys, targets(keys));
+                assertEquals(keys[2999], file.get(2999));
+            }
+            try (MappedSortedFile file = MappedSortedFile.openInts(path)) {
+                assertMatchesArray(file, keys, targets(keys));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void testLongs_littleEndianAndFullRange() throws IOException {
+        Path path = Files.createTempFile("sorted", ".longs");
+        try {
+            long[] keys = sortedKeys(new Random(17), 1000, Long.MAX_VALUE);
+            keys[0] = Long.MIN_VALUE;
+            keys[999] = Long.MAX_VALUE;
+            try (MappedSortedFile.Builder builder = MappedSortedFile.longBuilder(path)) {
+                for (long key : keys) {
+                    builder.add(key);
+                }
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            assertEquals((byte) 0x80, bytes[7]);
+            assertEquals(0, bytes[0]);
+            try (MappedSortedFile file = MappedSortedFile.open(path, Long.BYTES, 128, 64)) {
+                assertMatchesArray(file, keys, targets(keys));
+            }
+            try (MappedSortedFile file = MappedSortedFile.openLongs(path)) {
+                assertMatchesArray(file, keys, targets(keys));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void testDuplicatesAcrossWindows() throws IOException {
+        Path path = Files.createTempFile("sorted", ".ints");
+        try {
+            long[] keys = new long[500];
+            Arrays.fill(keys, 100, 400, 7);
+            Arrays.fill(keys, 400, 500, 9);
+            try (MappedSortedFile.Builder builder = MappedSortedFile.intBuilder(path)) {
+                for (long key : keys) {
+                    builder.add(key);
+                }
+            }
+            try (MappedSortedFile file = MappedSortedFile.open(path, Integer.BYTES, 256, 16)) {
+                assertMatchesArray(file, keys, new long[] {-1, 0, 1, 6, 7, 8, 9, 10});
+                assertEquals(100, file.indexOf(7));
+                assertEquals(400, file.upperBound(7));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void testEmptyFileAndErrors() throws IOException {
+        Path path = Files.createTempFile("sorted", ".ints");
+        try {
+            try (MappedSortedFile file = MappedSortedFile.openInts(path)) {
+                assertEquals(0, file.size());
+                assertEquals(0, file.lowerBound(5));
+                assertEquals(-1, file.indexOf(5));
+                assertThrows(IndexOutOfBoundsException.class, () -> file.get(0));
+            }
+            try (MappedSortedFile.Builder builder = MappedSortedFile.intBuilder(path)) {
+                builder.add(5);
+                assertThrows(IllegalArgumentException.class, () -> builder.add(4));
+                assertThrows(IllegalArgumentException.class, () -> builder.add(1L << 40));
+            }
+            MappedSortedFile file = MappedSortedFile.openInts(path);
+            file.close();
+            assertThrows(IllegalStateException.class, () -> file.lowerBound(5));
+            Files.write(path, new byte[] {1, 2, 3});
+            assertThrows(IllegalArgumentException.class, () -> MappedSortedFile.openInts(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    void testCloseDuringSearches() throws Exception {
+        Path path = Files.createTempFile("sorted", ".ints");
+        try {
+            try (MappedSortedFile.Builder builder = MappedSortedFile.intBuilder(path)) {
+                for (int i = 0; i < 10000; i++) {
+                    builder.add(2 * i);
+                }
+            }
+            for (int round = 0; round < 20; round++) {
+                MappedSortedFile file = MappedSortedFile.open(path, Integer.BYTES, 64, 32);
+                AtomicInteger wrong = new AtomicInteger();
+                List<Thread> threads = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    Thread thread = new Thread(() -> {
+                        // Every search either answers correctly or reports the file closed
+                        for (int i = 0; ; i = (i + 7) % 10000) {
+                            try {
+                                if (file.indexOf(2 * i) != i || file.upperBound(2 * i) != i + 1) {
+                                    wrong.incrementAndGet();
+                                }
+                            } catch (IllegalStateException e) {
+                                return;
+                            } catch (RuntimeException e) {
+                                wrong.incrementAndGet();
+                                return;
+                            }
+                        }
+                    });
+                    threads.add(thread);
+                    thread.start();
+                }
+                Thread.sleep(2);
+                file.close();
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                assertEquals(0, wrong.get());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
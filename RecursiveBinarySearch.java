@@ -1,7 +1,10 @@
 package com.amfk.lab12;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
 
 public class RecursiveBinarySearch {
 
@@ -37,7 +40,345 @@ public class RecursiveBinarySearch {
     }
 
     /**
-     * Performs a recursive binary search to find all indices of a target value in a sorted array.
+     * Performs an iterative, branch-free binary search on a sorted array to find the index of a
+     * target value. Each step halves the range with a conditional move rather than a branch, so
+     * the loop runs a fixed number of iterations with no mispredictions. For repeated lookups in
+     * large arrays, build an {@link EytzingerIndex} or {@link BlockedIntIndex} instead.
+     *
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the index of the first occurrence of the target value if found, or -1 if the target
+     *         is not in the array
+     *
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     *
+     * Postconditions:
+     * - If the target is found, the index of its first occurrence in the range is returned.
+     * - If the target is not found, -1 is returned.
+     */
+    public static int binarySearchIterative(int[] array, int target, int left, int right) {
+        if (array == null || left > right) {
+            return -1;
+        }
+        int index = lowerBoundBranchless(array, target, left, right + 1);
+        return index <= right && array[index] == target ? index : -1;
+    }
+
+    /**
+     * Finds the first index in [from, to) whose value is not less than target, or to if there is
+     * none. The range must not be empty.
+     */
+    static int lowerBoundBranchless(int[] array, int target, int from, int to) {
+        int base = from;
+        int length = to - from;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = array[base + half - 1] < target ? base + half : base;
+            length -= half;
+        }
+        return array[base] < target ? base + 1 : base;
+    }
+
+    /** Interpolation steps taken before the search falls back to halving. */
+    static final int MAX_INTERPOLATION_STEPS = 8;
+
+    /**
+     * Performs an interpolation search on a sorted array to find the index of a target value.
+     * Each step probes where the target would sit if the values in the range were evenly spread,
+     * which takes O(log log n) probes on near-uniform data instead of log n. On skewed data the
+     * search falls back to a binary search after a few probes, so it never costs more than
+     * a binary search plus a constant. For repeated lookups, see {@link LearnedIntIndex}.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the index of the first occurrence of the target value if found, or -1 if the target
+     *         is not in the array
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int interpolationSearch(int[] array, int target, int left, int right) {
+        if (array == null || left > right) {
+            return -1;
+        }
+        int index = interpolationLowerBound(array, target, left, right + 1);
+        return index <= right && array[index] == target ? index : -1;
+    }
+
+    /**
+     * Finds the first index in [from, to) whose value is not less than target, or to if there is
+     * none, by interpolation narrowed down to a short binary search.
+     */
+    static int interpolationLowerBound(int[] array, int target, int from, int to) {
+        // Invariant: everything before low is less than target, everything from high on is not
+        int low = from;
+        int high = to;
+        for (int step = 0; step < MAX_INTERPOLATION_STEPS && high - low > 16; step++) {
+            long first = array[low];
+            long last = array[high - 1];
+            if (target <= first) {
+                return low;
+            }
+            if (target > last) {
+                return high;
+            }
+            int probe = low + (int) ((double) (target - first) / (last - first) * (high - 1 - low));
+            if (array[probe] < target) {
+                low = probe + 1;
+            } else {
+                high = probe;
+            }
+        }
+        return low < high ? lowerBoundBranchless(array, target, low, high) : low;
+    }
+
+    /**
+     * Finds the first position in a sorted array whose value is not less than a target.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @return the smallest index i such that array[i] >= target, or array.length if there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * 
+     * Postconditions:
+     * - Every element before the returned index is less than target, and every element from it on
+     *   is greater than or equal to target. A null array is treated as empty.
+     */
+    public static int lowerBound(int[] array, int target) {
+        return array == null ? 0 : lowerBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array whose value is not less than a target.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] >= target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int lowerBound(int[] array, int target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        return lowerBoundBranchless(array, target, left, right + 1);
+    }
+
+    /**
+     * Finds the first position in a sorted array whose value is greater than a target.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @return the smallest index i such that array[i] > target, or array.length if there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * 
+     * Postconditions:
+     * - Every element before the returned index is less than or equal to target, and every element
+     *   from it on is greater than target. A null array is treated as empty.
+     */
+    public static int upperBound(int[] array, int target) {
+        return array == null ? 0 : upperBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array whose value is greater than a target.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] > target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int upperBound(int[] array, int target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        return upperBoundBranchless(array, target, left, right + 1);
+    }
+
+    /**
+     * Finds the range of positions holding a target value in a sorted array, with two
+     * logarithmic searches however many duplicates there are.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @return the range [from, to) of indices whose value equals target; if the target is absent
+     *         the range is empty and starts at the position where target would be inserted
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     */
+    public static IntRange equalRange(int[] array, int target) {
+        return array == null ? new IntRange(0, 0) : equalRange(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the range of positions holding a target value in a subrange of a sorted array.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the range [from, to) of indices in [left, right] whose value equals target
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static IntRange equalRange(int[] array, int target, int left, int right) {
+        if (array == null || left > right) {
+            return new IntRange(left, left);
+        }
+        int from = lowerBoundBranchless(array, target, left, right + 1);
+        return new IntRange(from, endOfRun(array, target, from, right + 1));
+    }
+
+    /**
+     * Counts the occurrences of a target value in a sorted array without allocating.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @return the number of elements equal to target
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     */
+    public static int countOccurrences(int[] array, int target) {
+        return array == null ? 0 : countOccurrences(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Counts the occurrences of a target value in a subrange of a sorted array without allocating.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the number of elements in [left, right] equal to target
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int countOccurrences(int[] array, int target, int left, int right) {
+        if (array == null || left > right) {
+            return 0;
+        }
+        int from = lowerBoundBranchless(array, target, left, right + 1);
+        return endOfRun(array, target, from, right + 1) - from;
+    }
+
+    /** Elements compared by the branch-free final stage: 16 ints, one cache line. */
+    static final int FINAL_STAGE_SIZE = 16;
+
+    /**
+     * Finds the end of the run of target values starting at from, the lower bound of target in
+     * [from, to). Most runs are short, so the elements after from, which share its cache line, are
+     * compared and counted without branches first; only a run longer than that needs a second
+     * logarithmic search.
+     */
+    static int endOfRun(int[] array, int target, int from, int to) {
+        int end = Math.min(to, from + FINAL_STAGE_SIZE);
+        int count = countEqual(array, target, from, end);
+        if (count < end - from || end == to) {
+            return from + count;
+        }
+        return upperBoundBranchless(array, target, end, to);
+    }
+
+    /**
+     * Counts the elements of [from, to) equal to target with a fixed-length loop and no data-dependent
+     * branches, a form the JIT unrolls into straight-line compares.
+     */
+    static int countEqual(int[] array, int target, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            count += array[i] == target ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Looks up many target values in one sorted array, using the common fork-join pool for large
+     * batches.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param queries the target values to search for, in any order
+     * @param results receives, at the position of each query, the index of the first occurrence of
+     *        that query in the array, or -1 if it is absent
+     * @throws IllegalArgumentException if results is shorter than queries
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * 
+     * Postconditions:
+     * - results[i] == binarySearchIterative(array, queries[i], 0, array.length - 1) for every query.
+     */
+    public static void binarySearchBatch(int[] array, int[] queries, int[] results) {
+        binarySearchBatch(array, queries, results, ForkJoinPool.commonPool(), BatchSearch.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Looks up many target values in one sorted array on the given pool. The batch is split in
+     * halves until each task holds at most chunkSize queries. Each task checks whether its queries
+     * are ascending, sorts them first if they are dense relative to the array, and otherwise runs
+     * several searches interleaved so their cache misses overlap.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param queries the target values to search for, in any order
+     * @param results receives, at the position of each query, the index of the first occurrence of
+     *        that query in the array, or -1 if it is absent
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkSize the number of queries answered by one task, at least 1
+     * @throws IllegalArgumentException if results is shorter than queries or chunkSize is not positive
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     */
+    public static void binarySearchBatch(int[] array, int[] queries, int[] results, ForkJoinPool pool,
+            int chunkSize) {
+        BatchSearch.search(array, queries, results, pool, chunkSize);
+    }
+
+    /**
+     * Finds the first index in [from, to) whose value is greater than target, or to if there is
+     * none. The range must not be empty.
+     */
+    static int upperBoundBranchless(int[] array, int target, int from, int to) {
+        int base = from;
+        int length = to - from;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = array[base + half - 1] <= target ? base + half : base;
+            length -= half;
+        }
+        return array[base] <= target ? base + 1 : base;
+    }
+
+    /**
+     * Finds all indices of a target value in a sorted array. The indices are located with
+     * {@link #equalRange(int[], int, int, int)}; prefer that method, which does not box them.
      * 
      * @param array the sorted array of integers to search in
      * @param target the target value to search for
@@ -54,25 +395,38 @@ public class RecursiveBinarySearch {
      * - If the target does not appear, an empty list is returned.
      */
     public static List<Integer> binarySearchAllIndices(int[] array, int target, int left, int right) {
-        List<Integer> result = new ArrayList<>();
-        if (array == null || left > right) {
-            return result;
-        }
-        int mid = left + (right - left) / 2;
-        if (array[mid] == target) {
-            // Add indices in sorted order
-            result.add(mid);
-            result.addAll(binarySearchAllIndices(array, target, left, mid - 1));
-            result.addAll(binarySearchAllIndices(array, target, mid + 1, right));
-            result.sort(Integer::compareTo);
-        } else if (array[mid] > target) {
-            result.addAll(binarySearchAllIndices(array, target, left, mid - 1));
-        } else {
-            result.addAll(binarySearchAllIndices(array, target, mid + 1, right));
+        IntRange range = equalRange(array, target, left, right);
+        List<Integer> result = new ArrayList<>(range.size());
+        for (int i = range.from(); i < range.to(); i++) {
+            result.add(i);
         }
         return result;
     }
 
+    /**
+     * Finds all indices of a target value in a sorted array without boxing them.
+     * 
+     * @param array the sorted array of integers to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @param buffer a list to clear and fill with the indices, or null to allocate a new one;
+     *        reusing the list of a previous query avoids allocation
+     * @return the list holding all indices where the target value appears, in ascending order;
+     *         this is buffer when it is not null
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static IntList binarySearchAllIndices(int[] array, int target, int left, int right, IntList buffer) {
+        IntRange range = equalRange(array, target, left, right);
+        IntList result = buffer == null ? new IntList(range.size()) : buffer;
+        result.clear();
+        result.addRange(range);
+        return result;
+    }
+
     /**
      * Performs a recursive binary search on a sorted array of strings to find the index of a target value.
      * 
@@ -103,4 +457,501 @@ public class RecursiveBinarySearch {
             return binarySearchRecursive(array, target, mid + 1, right);
         }
     }
+
+    /**
+     * Creates a finger-search cursor over a sorted array, for runs of lookups that land near
+     * each other. See {@link IntSearchCursor}.
+     * 
+     * @param array the sorted array of integers to search in
+     * @return a new cursor at the start of the array, for use by one thread
+     */
+    public static IntSearchCursor cursor(int[] array) {
+        return new IntSearchCursor(array);
+    }
+
+    /**
+     * Creates a finger-search cursor over a lexicographically sorted array of strings, for runs of
+     * lookups that land near each other. See {@link StringSearchCursor}.
+     * 
+     * @param array the sorted array of strings to search in
+     * @return a new cursor at the start of the array, for use by one thread
+     */
+    public static StringSearchCursor cursor(String[] array) {
+        return new StringSearchCursor(array);
+    }
+
+    /**
+     * Finger search shared by the cursors: finds the lower bound of a target in a sorted range
+     * [0, length), galloping outwards from a finger so that it costs O(log d) for a distance d
+     * between the finger and the answer.
+     * 
+     * @param length the number of elements
+     * @param finger the position to start from, between 0 and length
+     * @param isBelow tells whether the element at an index is less than the target
+     * @return the smallest index i such that isBelow(i) is false, or length if there is none
+     */
+    static int fingerLowerBound(int length, int finger, IntPredicate isBelow) {
+        int low;
+        int high;
+        if (finger < length && isBelow.test(finger)) {
+            // Everything up to the finger is below target; double the step forwards
+            low = finger;
+            int step = 1;
+            while (step < length - low && isBelow.test(low + step)) {
+                low += step;
+                step <<= 1;
+            }
+            high = step < length - low ? low + step : length;
+            low++;
+        } else if (finger == 0 || isBelow.test(finger - 1)) {
+            return finger;
+        } else {
+            // The element at high is not below target; double the step backwards until one is
+            high = finger - 1;
+            int step = 1;
+            while (step <= high && !isBelow.test(high - step)) {
+                high -= step;
+                step <<= 1;
+            }
+            low = step <= high ? high - step + 1 : 0;
+        }
+        // The answer lies in [low, high]; halve the range without branching on the comparison
+        int count = high - low;
+        while (count > 0) {
+            int half = count >>> 1;
+            boolean below = isBelow.test(low + half);
+            low = below ? low + half + 1 : low;
+            count = below ? count - half - 1 : half;
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of longs whose value is not less
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] >= target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int lowerBound(long[] array, long target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = array[base + half - 1] < target ? base + half : base;
+            length -= half;
+        }
+        return array[base] < target ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of longs whose value is not less than a target.
+     * 
+     * @return the smallest index i such that array[i] >= target, or array.length if there is none;
+     *         0 for a null array
+     * @see #lowerBound(long[], long, int, int)
+     */
+    public static int lowerBound(long[] array, long target) {
+        return array == null ? 0 : lowerBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of longs whose value is greater
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] > target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int upperBound(long[] array, long target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = array[base + half - 1] <= target ? base + half : base;
+            length -= half;
+        }
+        return array[base] <= target ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of longs whose value is greater than a target.
+     * 
+     * @return the smallest index i such that array[i] > target, or array.length if there is none;
+     *         0 for a null array
+     * @see #upperBound(long[], long, int, int)
+     */
+    public static int upperBound(long[] array, long target) {
+        return array == null ? 0 : upperBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Performs an iterative binary search on a sorted array of longs to find the index of a
+     * target value.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the index of the first occurrence of the target value in [left, right] if found,
+     *         or -1 if the target is not in the range
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int binarySearchIterative(long[] array, long target, int left, int right) {
+        if (array == null || left > right) {
+            return -1;
+        }
+        int index = lowerBound(array, target, left, right);
+        return index <= right && array[index] == target ? index : -1;
+    }
+
+    /**
+     * Maps a double to a long whose signed order is the order of {@link Double#compare}: -0.0
+     * before 0.0, and every NaN equal to the others and after positive infinity.
+     */
+    static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of doubles whose value is not less
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] >= target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted by Double.compare, as Arrays.sort(double[]) sorts it: -0.0 before
+     *   0.0, and NaN last.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int lowerBound(double[] array, double target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        long key = sortableBits(target);
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = sortableBits(array[base + half - 1]) < key ? base + half : base;
+            length -= half;
+        }
+        return sortableBits(array[base]) < key ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of doubles whose value is not less than a target.
+     * 
+     * @return the smallest index i such that array[i] >= target, or array.length if there is none;
+     *         0 for a null array
+     * @see #lowerBound(double[], double, int, int)
+     */
+    public static int lowerBound(double[] array, double target) {
+        return array == null ? 0 : lowerBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of doubles whose value is greater
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] > target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted by Double.compare, as Arrays.sort(double[]) sorts it: -0.0 before
+     *   0.0, and NaN last.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int upperBound(double[] array, double target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        long key = sortableBits(target);
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = sortableBits(array[base + half - 1]) <= key ? base + half : base;
+            length -= half;
+        }
+        return sortableBits(array[base]) <= key ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of doubles whose value is greater than a target.
+     * 
+     * @return the smallest index i such that array[i] > target, or array.length if there is none;
+     *         0 for a null array
+     * @see #upperBound(double[], double, int, int)
+     */
+    public static int upperBound(double[] array, double target) {
+        return array == null ? 0 : upperBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Performs an iterative binary search on a sorted array of doubles to find the index of a
+     * target value.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the index of the first occurrence of the target value in [left, right] if found,
+     *         or -1 if the target is not in the range
+     * 
+     * Preconditions:
+     * - The array must be sorted by Double.compare, as Arrays.sort(double[]) sorts it: -0.0 before
+     *   0.0, and NaN last.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int binarySearchIterative(double[] array, double target, int left, int right) {
+        if (array == null || left > right) {
+            return -1;
+        }
+        int index = lowerBound(array, target, left, right);
+        return index <= right && sortableBits(array[index]) == sortableBits(target) ? index : -1;
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of chars whose value is not less
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] >= target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int lowerBound(char[] array, char target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = array[base + half - 1] < target ? base + half : base;
+            length -= half;
+        }
+        return array[base] < target ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of chars whose value is not less than a target.
+     * 
+     * @return the smallest index i such that array[i] >= target, or array.length if there is none;
+     *         0 for a null array
+     * @see #lowerBound(char[], char, int, int)
+     */
+    public static int lowerBound(char[] array, char target) {
+        return array == null ? 0 : lowerBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of chars whose value is greater
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] > target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int upperBound(char[] array, char target, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = array[base + half - 1] <= target ? base + half : base;
+            length -= half;
+        }
+        return array[base] <= target ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of chars whose value is greater than a target.
+     * 
+     * @return the smallest index i such that array[i] > target, or array.length if there is none;
+     *         0 for a null array
+     * @see #upperBound(char[], char, int, int)
+     */
+    public static int upperBound(char[] array, char target) {
+        return array == null ? 0 : upperBound(array, target, 0, array.length - 1);
+    }
+
+    /**
+     * Performs an iterative binary search on a sorted array of chars to find the index of a
+     * target value.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the index of the first occurrence of the target value in [left, right] if found,
+     *         or -1 if the target is not in the range
+     * 
+     * Preconditions:
+     * - The array must be sorted in ascending order.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static int binarySearchIterative(char[] array, char target, int left, int right) {
+        if (array == null || left > right) {
+            return -1;
+        }
+        int index = lowerBound(array, target, left, right);
+        return index <= right && array[index] == target ? index : -1;
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of objects whose value is not less
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param comparator the order the array is sorted by
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] >= target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted by the comparator.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static <T> int lowerBound(T[] array, T target, Comparator<? super T> comparator, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = comparator.compare(array[base + half - 1], target) < 0 ? base + half : base;
+            length -= half;
+        }
+        return comparator.compare(array[base], target) < 0 ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of objects whose value is not less than a target.
+     * 
+     * @return the smallest index i such that array[i] >= target, or array.length if there is none;
+     *         0 for a null array
+     * @see #lowerBound(Object[], Object, Comparator, int, int)
+     */
+    public static <T> int lowerBound(T[] array, T target, Comparator<? super T> comparator) {
+        return array == null ? 0 : lowerBound(array, target, comparator, 0, array.length - 1);
+    }
+
+    /**
+     * Finds the first position in a subrange of a sorted array of objects whose value is greater
+     * than a target.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param comparator the order the array is sorted by
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the smallest index i in [left, right] such that array[i] > target, or right + 1 if
+     *         there is none
+     * 
+     * Preconditions:
+     * - The array must be sorted by the comparator.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static <T> int upperBound(T[] array, T target, Comparator<? super T> comparator, int left, int right) {
+        if (array == null || left > right) {
+            return left;
+        }
+        int base = left;
+        int length = right - left + 1;
+        while (length > 1) {
+            int half = length >>> 1;
+            base = comparator.compare(array[base + half - 1], target) <= 0 ? base + half : base;
+            length -= half;
+        }
+        return comparator.compare(array[base], target) <= 0 ? base + 1 : base;
+    }
+
+    /**
+     * Finds the first position in a sorted array of objects whose value is greater than a target.
+     * 
+     * @return the smallest index i such that array[i] > target, or array.length if there is none;
+     *         0 for a null array
+     * @see #upperBound(Object[], Object, Comparator, int, int)
+     */
+    public static <T> int upperBound(T[] array, T target, Comparator<? super T> comparator) {
+        return array == null ? 0 : upperBound(array, target, comparator, 0, array.length - 1);
+    }
+
+    /**
+     * Performs an iterative binary search on a sorted array of objects to find the index of a
+     * target value.
+     * 
+     * @param array the sorted array to search in
+     * @param target the target value to search for
+     * @param comparator the order the array is sorted by
+     * @param left the leftmost index of the search range
+     * @param right the rightmost index of the search range
+     * @return the index of the first occurrence of the target value in [left, right] if found,
+     *         or -1 if the target is not in the range
+     * 
+     * Preconditions:
+     * - The array must be sorted by the comparator.
+     * - `left` and `right` indices should define a valid subrange of the array.
+     */
+    public static <T> int binarySearchIterative(T[] array, T target, Comparator<? super T> comparator, int left, int right) {
+        if (array == null || left > right) {
+            return -1;
+        }
+        int index = lowerBound(array, target, comparator, left, right);
+        return index <= right && comparator.compare(array[index], target) == 0 ? index : -1;
+    }
 }
@@ -2,6 +2,8 @@ package com.amfk.lab12;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 public class RecursiveBinarySearchTest {
@@ -64,4 +66,153 @@ public class RecursiveBinarySearchTest {
         assertEquals(999, RecursiveBinarySearch.binarySearchRecursive(array, 1000, 0, array.length - 1));
         assertEquals(0, RecursiveBinarySearch.binarySearchRecursive(array, 1, 0, array.length - 1)); // Lower edge case
     }
+
+    @Test
+    void testBinarySearchIterative_matchesRecursive() {
+        int[] array = {1, 3, 5, 7, 9, 11, 13};
+        for (int target = 0; target <= 14; target++) {
+            assertEquals(RecursiveBinarySearch.binarySearchRecursive(array, target, 0, array.length - 1),
+                    RecursiveBinarySearch.binarySearchIterative(array, target, 0, array.length - 1));
+        }
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative((int[]) null, 5, 0, 0));
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative(new int[0], 5, 0, -1));
+    }
+
+    @Test
+    void testBinarySearchIterative_firstDuplicateWithinRange() {
+        int[] array = {1, 2, 2, 2, 3, 4};
+        assertEquals(1, RecursiveBinarySearch.binarySearchIterative(array, 2, 0, array.length - 1));
+        assertEquals(2, RecursiveBinarySearch.binarySearchIterative(array, 2, 2, 4));
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative(array, 4, 0, 4));
+    }
+
+    @Test
+    void testLowerAndUpperBound() {
+        int[] array = {1, 2, 2, 2, 3, 5};
+        assertEquals(0, RecursiveBinarySearch.lowerBound(array, 0));
+        assertEquals(1, RecursiveBinarySearch.lowerBound(array, 2));
+        assertEquals(4, RecursiveBinarySearch.upperBound(array, 2));
+        assertEquals(5, RecursiveBinarySearch.lowerBound(array, 4));
+        assertEquals(5, RecursiveBinarySearch.upperBound(array, 4));
+        assertEquals(6, RecursiveBinarySearch.lowerBound(array, 6));
+        assertEquals(6, RecursiveBinarySearch.upperBound(array, 5));
+        assertEquals(3, RecursiveBinarySearch.upperBound(array, 2, 0, 2));
+        assertEquals(2, RecursiveBinarySearch.lowerBound(array, 1, 2, 4));
+        assertEquals(0, RecursiveBinarySearch.lowerBound((int[]) null, 1));
+        assertEquals(0, RecursiveBinarySearch.upperBound(new int[0], 1));
+    }
+
+    @Test
+    void testEqualRange() {
+        int[] array = {1, 2, 2, 2, 3, 5};
+        assertEquals(new IntRange(1, 4), RecursiveBinarySearch.equalRange(array, 2));
+        assertEquals(new IntRange(5, 6), RecursiveBinarySearch.equalRange(array, 5));
+        assertTrue(RecursiveBinarySearch.equalRange(array, 4).isEmpty());
+        assertEquals(5, RecursiveBinarySearch.equalRange(array, 4).from());
+        assertEquals(new IntRange(2, 4), RecursiveBinarySearch.equalRange(array, 2, 2, 5));
+        assertEquals(new IntRange(6, 6), RecursiveBinarySearch.equalRange(array, 9));
+        assertEquals(new IntRange(0, 0), RecursiveBinarySearch.equalRange(null, 9));
+        assertEquals("[1, 4)", RecursiveBinarySearch.equalRange(array, 2).toString());
+    }
+
+    @Test
+    void testEqualRange_manyDuplicates() {
+        int[] array = new int[1_000_000];
+        Arrays.fill(array, 10, 999_990, 7);
+        Arrays.fill(array, 999_990, array.length, 8);
+        IntRange range = RecursiveBinarySearch.equalRange(array, 7);
+        assertEquals(10, range.from());
+        assertEquals(999_980, range.size());
+        assertTrue(range.contains(10) && range.contains(999_989) && !range.contains(999_990));
+        assertEquals(List.of(999_990, 999_991, 999_992, 999_993, 999_994, 999_995, 999_996, 999_997, 999_998, 999_999),
+                RecursiveBinarySearch.binarySearchAllIndices(array, 8, 0, array.length - 1));
+    }
+
+    @Test
+    void testIntRange_rejectsReversedBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new IntRange(3, 2));
+    }
+
+    @Test
+    void testCountOccurrences_shortAndLongRuns() {
+        int[] array = new int[200];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = i < 5 ? 1 : i < 21 ? 2 : i < 38 ? 3 : i < 150 ? 4 : 5 + i;
+        }
+        assertEquals(0, RecursiveBinarySearch.countOccurrences(array, 0));
+        assertEquals(5, RecursiveBinarySearch.countOccurrences(array, 1));
+        assertEquals(16, RecursiveBinarySearch.countOccurrences(array, 2));
+        assertEquals(17, RecursiveBinarySearch.countOccurrences(array, 3));
+        assertEquals(112, RecursiveBinarySearch.countOccurrences(array, 4));
+        assertEquals(1, RecursiveBinarySearch.countOccurrences(array, 5 + 199));
+        assertEquals(16, RecursiveBinarySearch.countOccurrences(array, 4, 134, 149));
+        assertEquals(3, RecursiveBinarySearch.countOccurrences(array, 2, 18, 30));
+        assertEquals(new IntRange(21, 38), RecursiveBinarySearch.equalRange(array, 3));
+        assertEquals(new IntRange(38, 150), RecursiveBinarySearch.equalRange(array, 4));
+        assertEquals(0, RecursiveBinarySearch.countOccurrences(null, 4));
+    }
+
+    @Test
+    void testLongOverloads() {
+        long[] array = {Long.MIN_VALUE, -5, 3_000_000_000L, 3_000_000_000L, Long.MAX_VALUE};
+        assertEquals(2, RecursiveBinarySearch.lowerBound(array, 3_000_000_000L));
+        assertEquals(4, RecursiveBinarySearch.upperBound(array, 3_000_000_000L));
+        assertEquals(0, RecursiveBinarySearch.lowerBound(array, Long.MIN_VALUE));
+        assertEquals(5, RecursiveBinarySearch.upperBound(array, Long.MAX_VALUE));
+        assertEquals(4, RecursiveBinarySearch.binarySearchIterative(array, Long.MAX_VALUE, 0, array.length - 1));
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative(array, 0L, 0, array.length - 1));
+        assertEquals(3, RecursiveBinarySearch.lowerBound(array, 3_000_000_000L, 3, 4));
+        assertEquals(0, RecursiveBinarySearch.lowerBound((long[]) null, 1L));
+    }
+
+    @Test
+    void testDoubleOverloads_negativeZeroAndNaNOrdering() {
+        double[] array = {Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, 0.0, 2.5, Double.POSITIVE_INFINITY, Double.NaN,
+                Double.NaN};
+        double[] sorted = array.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(array, sorted);
+        assertEquals(2, RecursiveBinarySearch.lowerBound(array, -0.0));
+        assertEquals(3, RecursiveBinarySearch.upperBound(array, -0.0));
+        assertEquals(3, RecursiveBinarySearch.lowerBound(array, 0.0));
+        assertEquals(5, RecursiveBinarySearch.upperBound(array, 0.0));
+        assertEquals(7, RecursiveBinarySearch.lowerBound(array, Double.NaN));
+        assertEquals(9, RecursiveBinarySearch.upperBound(array, Double.NaN));
+        assertEquals(7, RecursiveBinarySearch.upperBound(array, Double.POSITIVE_INFINITY));
+        assertEquals(7, RecursiveBinarySearch.binarySearchIterative(array, Double.NaN, 0, array.length - 1));
+        assertEquals(2, RecursiveBinarySearch.binarySearchIterative(array, -0.0, 0, array.length - 1));
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative(array, 1.0, 0, array.length - 1));
+        assertEquals(5, RecursiveBinarySearch.lowerBound(array, 1.0));
+        for (double target : array) {
+            int expected = Arrays.binarySearch(array, target);
+            assertEquals(array[expected], array[RecursiveBinarySearch.binarySearchIterative(array, target, 0, array.length - 1)]);
+        }
+    }
+
+    @Test
+    void testCharOverloads() {
+        char[] array = "aabcxyz".toCharArray();
+        assertEquals(0, RecursiveBinarySearch.lowerBound(array, 'a'));
+        assertEquals(2, RecursiveBinarySearch.upperBound(array, 'a'));
+        assertEquals(4, RecursiveBinarySearch.lowerBound(array, 'd'));
+        assertEquals(7, RecursiveBinarySearch.upperBound(array, '\uFFFF'));
+        assertEquals(3, RecursiveBinarySearch.binarySearchIterative(array, 'c', 0, array.length - 1));
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative(array, 'c', 4, 6));
+    }
+
+    @Test
+    void testComparatorOverloads() {
+        String[] array = {"kiwi", "fig", "pear", "apple", "banana", "cherry"};
+        Comparator<String> byLength = Comparator.comparingInt(String::length);
+        Arrays.sort(array, byLength);
+        assertEquals(1, RecursiveBinarySearch.lowerBound(array, "four", byLength));
+        assertEquals(3, RecursiveBinarySearch.upperBound(array, "four", byLength));
+        assertEquals(4, RecursiveBinarySearch.lowerBound(array, "sixsix", byLength));
+        assertEquals(6, RecursiveBinarySearch.upperBound(array, "sixsix", byLength));
+        assertEquals(0, RecursiveBinarySearch.binarySearchIterative(array, "abc", byLength, 0, array.length - 1));
+        assertEquals(-1, RecursiveBinarySearch.binarySearchIterative(array, "ab", byLength, 0, array.length - 1));
+        Integer[] boxed = {1, 3, 3, 7};
+        assertEquals(3, RecursiveBinarySearch.upperBound(boxed, 3, Comparator.naturalOrder()));
+        assertEquals(3, RecursiveBinarySearch.upperBound(boxed, 3, Comparator.<Integer>naturalOrder(), 0, 2));
+    }
 }
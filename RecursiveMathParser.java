@@ -1,7 +1,16 @@
 package com.amfk.lab12;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToDoubleFunction;
+
 public class RecursiveMathParser {
 
+    /** Default number of expressions evaluated by one fork-join task. */
+    static final int DEFAULT_CHUNK_SIZE = 256;
+
     /**
      * Evaluates a mathematical expression given as a string using recursion.
      * The expression may contain addition (+), subtraction (-), multiplication (*), and division (/).
@@ -9,6 +18,7 @@ public class RecursiveMathParser {
      * @param expression the mathematical expression as a string (e.g., "3 + 5 * 2")
      * @return the result of the evaluated expression as a double
      * @throws ArithmeticException if division by zero is encountered
+     * @throws IllegalStateException if the expression refers to variables
      * 
      * Preconditions:
      * - The input expression must be a valid mathematical expression with proper syntax.
@@ -19,90 +29,159 @@ public class RecursiveMathParser {
      * - If the expression is invalid or division by zero occurs, an exception is thrown.
      */
     public static double evaluateExpression(String expression) {
-        return parseExpression(expression.replaceAll("\\s+", ""), 0, expression.length() - 1);
+        return compile(expression).evaluate();
     }
 
     /**
-     * Parses and evaluates a sub-expression within the given range of the main expression.
-     * Handles parenthesis, operator precedence, and recursively evaluates sub-expressions.
+     * Parses a mathematical expression once into a tree that can be evaluated repeatedly.
+     * The input is scanned a single time, so parsing is linear in its length.
+     * Use this instead of {@link #evaluateExpression(String)} when the same expression
+     * is evaluated many times, so the string is only scanned once.
      * 
-     * @param expression the mathematical expression as a string
-     * @param start the starting index of the sub-expression
-     * @param end the ending index of the sub-expression
-     * @return the result of the evaluated sub-expression as a double
-     * @throws ArithmeticException if division by zero is encountered
+     * @param expression the mathematical expression as a string (e.g., "3 + 5 * 2")
+     * @return an immutable, thread-safe compiled form of the expression
+     * @throws IllegalArgumentException if the expression is not well-formed
      * 
      * Preconditions:
-     * - The sub-expression must be well-formed (valid numbers and operators).
-     * - The indices `start` and `end` should be within the bounds of the string.
+     * - The input expression must be a valid mathematical expression with proper syntax.
      * 
      * Postconditions:
-     * - The result of the sub-expression is returned as a double.
-     * - If the sub-expression contains invalid operations, an exception is thrown.
+     * - The returned expression evaluates to the same value as evaluateExpression(expression).
+     * - Division by zero is reported when the compiled expression is evaluated, not here.
      */
-    private static double parseExpression(String expression, int start, int end) {
-        // Handle parentheses: recursively evaluate if the entire sub-expression is enclosed in parentheses
-        if (expression.charAt(start) == '(' && expression.charAt(end) == ')') {
-            return parseExpression(expression, start + 1, end - 1);
-        }
-
-        // Find the first operator by precedence (first +, - then * and /)
-        int operatorIndex = findOperator(expression, start, end, "+-");
-        if (operatorIndex == -1) {
-            operatorIndex = findOperator(expression, start, end, "*/");
-        }
-
-        if (operatorIndex != -1) {
-            char operator = expression.charAt(operatorIndex);
-            double left = parseExpression(expression, start, operatorIndex - 1);
-            double right = parseExpression(expression, operatorIndex + 1, end);
-
-            switch (operator) {
-                case '+':
-                    return left + right;
-                case '-':
-                    return left - right;
-                case '*':
-                    return left * right;
-                case '/':
-                    if (right == 0) {
-                        throw new ArithmeticException("Division by zero");
-                    }
-                    return left / right;
-            }
-        }
-
-        // If no operator found, parse the sub-expression as a number
-        return Double.parseDouble(expression.substring(start, end + 1));
+    public static CompiledExpression compile(String expression) {
+        return ExpressionParser.parse(expression);
     }
 
     /**
-     * Finds the index of the first operator in the expression within the given range.
-     * The operator is chosen based on its precedence in the given `operators` string.
+     * Evaluates an expression with named variables once per row over columns of values.
+     * The expression is parsed once and each operator is then applied to whole blocks
+     * of rows, which is much faster than calling evaluateExpression per row.
      * 
-     * @param expression the mathematical expression as a string
-     * @param start the starting index of the search range
-     * @param end the ending index of the search range
-     * @param operators a string containing the operators to search for (e.g., "+-", "/*")
-     * @return the index of the first found operator, or -1 if no operator is found
+     * @param expression the mathematical expression as a string (e.g., "a * b + c / 2")
+     * @param columns the column of values for each variable name used in the expression
+     * @param out receives the result of each row; its length is the number of rows
+     * @throws ArithmeticException if any row divides by zero
+     * @throws IllegalArgumentException if the expression is invalid, or a variable has
+     *         no column or a column shorter than out
      * 
      * Preconditions:
-     * - The `operators` string should contain valid mathematical operators in order of precedence.
-     * - `start` and `end` should be within the bounds of the string.
+     * - Every variable in the expression has a column holding at least out.length values.
+     * 
+     * Postconditions:
+     * - out[row] holds the value of the expression for the values at that row.
+     */
+    public static void evaluateExpression(String expression, Map<String, double[]> columns, double[] out) {
+        compile(expression).evaluate(columns, out);
+    }
+
+    /**
+     * Evaluates many independent expressions in parallel on the common fork-join pool.
+     * 
+     * @param expressions the mathematical expressions to evaluate
+     * @return the value or failure of each expression, in input order
      * 
      * Postconditions:
-     * - Returns the index of the first operator found in the range, or -1 if not found.
+     * - A failing expression (invalid syntax, division by zero, null) is recorded in the
+     *   results and does not stop the others from being evaluated.
+     */
+    public static EvaluationResults evaluateAll(List<String> expressions) {
+        return evaluateAll(expressions, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Evaluates many independent expressions in parallel on the given pool.
+     * 
+     * @param expressions the mathematical expressions to evaluate
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkSize the number of expressions evaluated by one task, at least 1
+     * @return the value or failure of each expression, in input order
+     * @throws IllegalArgumentException if chunkSize is not positive
      */
-    private static int findOperator(String expression, int start, int end, String operators) {
-        int balance = 0; // Track the balance of parentheses
-        for (int i = end; i >= start; i--) {
-            char c = expression.charAt(i);
-            if (c == ')') balance++;
-            if (c == '(') balance--;
-            if (balance == 0 && operators.indexOf(c) >= 0) {
-                return i; // Return the operator found outside of parentheses
+    public static EvaluationResults evaluateAll(List<String> expressions, ForkJoinPool pool, int chunkSize) {
+        return evaluateAll(expressions.toArray(new String[0]), pool, chunkSize);
+    }
+
+    /**
+     * Evaluates many independent expressions in parallel on the common fork-join pool.
+     * 
+     * @param expressions the mathematical expressions to evaluate
+     * @return the value or failure of each expression, in input order
+     */
+    public static EvaluationResults evaluateAll(String[] expressions) {
+        return evaluateAll(expressions, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Evaluates many independent expressions in parallel on the given pool.
+     * The input is split in halves until each task holds at most chunkSize expressions.
+     * 
+     * @param expressions the mathematical expressions to evaluate
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkSize the number of expressions evaluated by one task, at least 1
+     * @return the value or failure of each expression, in input order
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public static EvaluationResults evaluateAll(String[] expressions, ForkJoinPool pool, int chunkSize) {
+        return evaluateAll(expressions, pool, chunkSize, RecursiveMathParser::evaluateExpression);
+    }
+
+    /**
+     * Evaluates many independent expressions in parallel with the given evaluator,
+     * e.g. one backed by an {@link ExpressionCache}.
+     */
+    static EvaluationResults evaluateAll(String[] expressions, ForkJoinPool pool, int chunkSize,
+            ToDoubleFunction<String> evaluator) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        double[] values = new double[expressions.length];
+        RuntimeException[] errors = new RuntimeException[expressions.length];
+        pool.invoke(new EvaluateTask(expressions, evaluator, values, errors, 0, expressions.length, chunkSize));
+        return new EvaluationResults(values, errors);
+    }
+
+    /**
+     * Evaluates a range of a batch, splitting it in halves while it is larger than one chunk.
+     */
+    private static final class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] expressions;
+        private final ToDoubleFunction<String> evaluator;
+        private final double[] values;
+        private final RuntimeException[] errors;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        EvaluateTask(String[] expressions, ToDoubleFunction<String> evaluator, double[] values, RuntimeException[] errors,
+                int from, int to, int chunkSize) {
+            this.expressions = expressions;
+            this.evaluator = evaluator;
+            this.values = values;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        values[i] = evaluator.applyAsDouble(expressions[i]);
+                    } catch (RuntimeException e) {
+                        values[i] = Double.NaN;
+                        errors[i] = e;
+                    }
+                }
+                return;
             }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(expressions, evaluator, values, errors, from, middle, chunkSize),
+                    new EvaluateTask(expressions, evaluator, values, errors, middle, to, chunkSize));
         }
-        return -1; // No operator found
     }
 }
@@ -34,4 +34,28 @@ public class RecursiveMathParserTest {
     void testEvaluateExpression_divisionByZero() {
         assertThrows(ArithmeticException.class, () -> RecursiveMathParser.evaluateExpression("5/0"));
     }
+
+    @Test
+    void testCompile_evaluatesRepeatedly() {
+        CompiledExpression expression = RecursiveMathParser.compile("(3 + 5) * 2");
+        assertEquals(16, expression.evaluate());
+        assertEquals(16, expression.evaluate());
+    }
+
+    @Test
+    void testCompile_matchesEvaluateExpression() {
+        String source = "10-4-3+8/2*3";
+        assertEquals(RecursiveMathParser.evaluateExpression(source), RecursiveMathParser.compile(source).evaluate());
+    }
+
+    @Test
+    void testCompile_divisionByZeroReportedOnEvaluate() {
+        CompiledExpression expression = RecursiveMathParser.compile("5/0");
+        assertThrows(ArithmeticException.class, expression::evaluate);
+    }
+
+    @Test
+    void testCompile_invalidExpression() {
+        assertThrows(IllegalArgumentException.class, () -> RecursiveMathParser.compile("3++5"));
+    }
 }
@@ -1,36 +1,268 @@
 package com.amfk.lab12;
 
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
 public class RecursiveSumDigits {
 
+    /** Numbers below this are summed with one table lookup. */
+    static final int TABLE_SIZE = 10_000;
+
+    /** Digit sums of 0 to 9999, four decimal digits per lookup. */
+    static final byte[] DIGIT_SUMS = new byte[TABLE_SIZE];
+
+    static {
+        for (int i = 1; i < TABLE_SIZE; i++) {
+            DIGIT_SUMS[i] = (byte) (DIGIT_SUMS[i / 10] + i % 10);
+        }
+    }
+
     /**
-     * Computes the sum of the digits of a given non-negative integer.
-     * The function recursively calculates the sum by extracting the last digit
-     * and adding it to the sum of the remaining digits.
+     * Computes the sum of the digits of a given integer.
+     * The function consumes four digits per step: it splits off the last four digits
+     * with one division by 10000 and looks up their sum in a precomputed table.
      * 
-     * @param number the non-negative integer whose digits are to be summed
+     * @param number the integer whose digits are to be summed
      * @return the sum of the digits of the given number
      * 
      * Preconditions:
-     * - The input number is an integer, and will be converted to its absolute value.
-     * - The method handles both positive and negative integers by converting negative numbers to positive.
+     * - The input number is an integer; its sign is ignored.
+     * - The method handles both positive and negative integers, including Integer.MIN_VALUE.
      * 
      * Postconditions:
      * - Returns the sum of the digits of the number.
-     * - The method works by repeatedly extracting the last digit (using modulo 10) and recursively summing the rest.
+     * - The method works by repeatedly extracting the last four digits (using modulo 10000) and
+     *   looking up their sum, so a 10-digit number takes three steps.
      * 
      * Edge Cases:
-     * - If the input number is 0, the method returns 0 (base case).
-     * - If the number is negative, it is first converted to positive before calculating the sum.
+     * - If the input number is 0, the method returns 0.
+     * - Negative numbers are summed as negatives, since -Integer.MIN_VALUE does not fit in an int.
      * 
      * Example:
      * - sumOfDigits(12345) returns 15 (1 + 2 + 3 + 4 + 5).
      * - sumOfDigits(-12345) returns 15 (same as the positive case).
+     * - sumOfDigits(Integer.MIN_VALUE) returns 47 (the digits of 2147483648).
      */
     public static int sumOfDigits(int number) {
-        number = Math.abs(number); // Convert negative numbers to positive
-        if (number == 0) {
-            return 0; // Base case: when the number is reduced to 0, return 0
+        // Work on the non-positive value: every int has one, unlike a non-negative one
+        int negative = number > 0 ? -number : number;
+        int sum = 0;
+        while (negative <= -TABLE_SIZE) {
+            int quotient = negative / TABLE_SIZE;
+            sum += DIGIT_SUMS[quotient * TABLE_SIZE - negative];
+            negative = quotient;
+        }
+        return sum + DIGIT_SUMS[-negative];
+    }
+
+    /**
+     * Computes the sum of the digits of a given long, four digits per step as in
+     * {@link #sumOfDigits(int)}.
+     * 
+     * @param number the long whose digits are to be summed; its sign is ignored
+     * @return the sum of the digits of the given number, at most 171
+     * 
+     * Edge Cases:
+     * - sumOfDigits(Long.MIN_VALUE) returns 89 (the digits of 9223372036854775808).
+     */
+    public static int sumOfDigits(long number) {
+        long negative = number > 0 ? -number : number;
+        int sum = 0;
+        // Reduce to the int range in at most three steps, then finish with int arithmetic
+        while (negative < Integer.MIN_VALUE) {
+            long quotient = negative / TABLE_SIZE;
+            sum += DIGIT_SUMS[(int) (quotient * TABLE_SIZE - negative)];
+            negative = quotient;
+        }
+        return sum + sumOfDigits((int) negative);
+    }
+
+    /** Powers 10^(18 * 2^i), computed as they are needed. */
+    private static volatile BigInteger[] powers = {BigInteger.TEN.pow(18)};
+
+    /**
+     * Computes the sum of the digits of a given BigInteger.
+     * Rather than dividing by 10 once per digit, which takes time quadratic in the number of
+     * digits, the number is split in two halves at a power 10^(18 * 2^i) and the halves are
+     * summed independently, down to pieces that fit in a long. A leading zero adds nothing to a
+     * digit sum, so the lower halves need no padding.
+     * 
+     * @param number the number whose digits are to be summed; its sign is ignored
+     * @return the sum of the digits of the given number
+     */
+    public static long sumOfDigits(BigInteger number) {
+        return sumOfDigitsPositive(number.abs());
+    }
+
+    private static long sumOfDigitsPositive(BigInteger number) {
+        if (number.bitLength() < Long.SIZE) {
+            return sumOfDigits(number.longValue());
+        }
+        // The largest cached power with at most about half the bits of number
+        int level = 0;
+        while (2 * power(level + 1).bitLength() <= number.bitLength() + 1) {
+            level++;
+        }
+        BigInteger[] parts = number.divideAndRemainder(power(level));
+        return sumOfDigitsPositive(parts[0]) + sumOfDigitsPositive(parts[1]);
+    }
+
+    /** Returns 10^(18 * 2^level), squaring the largest cached power as needed. */
+    private static BigInteger power(int level) {
+        BigInteger[] cached = powers;
+        if (level < cached.length) {
+            return cached[level];
+        }
+        synchronized (RecursiveSumDigits.class) {
+            cached = powers;
+            if (level >= cached.length) {
+                BigInteger[] grown = Arrays.copyOf(cached, level + 1);
+                for (int i = cached.length; i <= level; i++) {
+                    grown[i] = grown[i - 1].multiply(grown[i - 1]);
+                }
+                powers = grown;
+                cached = grown;
+            }
+            return cached[level];
+        }
+    }
+
+    /** Numbers summed by one fork-join task by default. */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * Computes the digit sum of every number of an array, splitting large arrays across the
+     * common fork-join pool.
+     * 
+     * @param in the numbers whose digits are to be summed; signs are ignored
+     * @param out receives the digit sum of in[i] at out[i]
+     * @throws IllegalArgumentException if out is shorter than in
+     * 
+     * Postconditions:
+     * - out[i] == sumOfDigits(in[i]) for every i < in.length.
+     */
+    public static void sumOfDigits(int[] in, int[] out) {
+        sumOfDigits(in, out, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Computes the digit sum of every number of an array on the given pool. The array is split in
+     * halves until each task holds at most chunkSize numbers.
+     * 
+     * @param in the numbers whose digits are to be summed; signs are ignored
+     * @param out receives the digit sum of in[i] at out[i]
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkSize the number of numbers summed by one task, at least 1
+     * @throws IllegalArgumentException if out is shorter than in or chunkSize is not positive
+     */
+    public static void sumOfDigits(int[] in, int[] out, ForkJoinPool pool, int chunkSize) {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output length " + out.length + " is shorter than input length " + in.length);
+        }
+        run(in, out, pool, chunkSize);
+    }
+
+    /**
+     * Computes the total of the digit sums of every number of an array, splitting large arrays
+     * across the common fork-join pool.
+     * 
+     * @param in the numbers whose digits are to be summed; signs are ignored
+     * @return the sum of sumOfDigits(in[i]) over the array
+     */
+    public static long totalSumOfDigits(int[] in) {
+        return totalSumOfDigits(in, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Computes the total of the digit sums of every number of an array on the given pool.
+     * 
+     * @param in the numbers whose digits are to be summed; signs are ignored
+     * @param pool the pool to run on; its parallelism bounds the number of cores used
+     * @param chunkSize the number of numbers summed by one task, at least 1
+     * @return the sum of sumOfDigits(in[i]) over the array
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public static long totalSumOfDigits(int[] in, ForkJoinPool pool, int chunkSize) {
+        return run(in, null, pool, chunkSize);
+    }
+
+    /**
+     * Computes the total of the digit sums of a stream of numbers. A parallel stream is summed
+     * in parallel.
+     * 
+     * @param numbers the numbers whose digits are to be summed; signs are ignored
+     * @return the sum of sumOfDigits(n) over the stream
+     */
+    public static long totalSumOfDigits(IntStream numbers) {
+        return numbers.mapToLong(number -> sumOfDigits(number)).sum();
+    }
+
+    private static long run(int[] in, int[] out, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        if (in.length <= chunkSize) {
+            return sumRange(in, out, 0, in.length);
+        }
+        return pool.invoke(new SumTask(in, out, 0, in.length, chunkSize));
+    }
+
+    /**
+     * Sums the digits of in[from, to), storing each digit sum in out unless it is null, and
+     * returns their total. Every number takes exactly three lookups with no branches: two
+     * divisions by 10000 reduce any int to at most 21, so the loop body is straight-line code
+     * whose iterations the CPU overlaps. The lookups are gathers, which C2 does not vectorize.
+     */
+    static long sumRange(int[] in, int[] out, int from, int to) {
+        byte[] table = DIGIT_SUMS;
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            int number = in[i];
+            int negative = number > 0 ? -number : number;
+            int middle = negative / TABLE_SIZE;
+            int high = middle / TABLE_SIZE;
+            int sum = table[middle * TABLE_SIZE - negative] + table[high * TABLE_SIZE - middle] + table[-high];
+            if (out != null) {
+                out[i] = sum;
+            }
+            total += sum;
+        }
+        return total;
+    }
+
+    /**
+     * Sums a range of an array, splitting it in halves while it is larger than one chunk.
+     */
+    private static final class SumTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] in;
+        private final int[] out;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        SumTask(int[] in, int[] out, int from, int to, int chunkSize) {
+            this.in = in;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from <= chunkSize) {
+                return sumRange(in, out, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SumTask right = new SumTask(in, out, mid, to, chunkSize);
+            right.fork();
+            long left = new SumTask(in, out, from, mid, chunkSize).compute();
+            return left + right.join();
         }
-        return number % 10 + sumOfDigits(number / 10); // Recursive case
     }
 }
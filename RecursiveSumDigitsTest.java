@@ -2,6 +2,10 @@ package com.amfk.lab12;
 
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 public class RecursiveSumDigitsTest {
 
@@ -34,4 +38,83 @@ public class RecursiveSumDigitsTest {
     void testSumOfDigits_largeNegativeNumber() {
         assertEquals(45, RecursiveSumDigits.sumOfDigits(-987654321)); // Large negative number
     }
+
+    private static int sumOfDecimalChars(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            sum += c == '-' ? 0 : c - '0';
+        }
+        return sum;
+    }
+
+    @Test
+    void testSumOfDigits_minValue() {
+        assertEquals(47, RecursiveSumDigits.sumOfDigits(Integer.MIN_VALUE));
+        assertEquals(46, RecursiveSumDigits.sumOfDigits(Integer.MAX_VALUE));
+        assertEquals(89, RecursiveSumDigits.sumOfDigits(Long.MIN_VALUE));
+        assertEquals(88, RecursiveSumDigits.sumOfDigits(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testSumOfDigits_intAndLongMatchDecimalString() {
+        Random random = new Random(23);
+        for (int i = 0; i < 100_000; i++) {
+            int value = i < 20_000 ? i - 10_000 : random.nextInt();
+            assertEquals(sumOfDecimalChars(Integer.toString(value)), RecursiveSumDigits.sumOfDigits(value));
+            long wide = random.nextLong() >> random.nextInt(64);
+            assertEquals(sumOfDecimalChars(Long.toString(wide)), RecursiveSumDigits.sumOfDigits(wide));
+        }
+        assertEquals(1, RecursiveSumDigits.sumOfDigits(10_000));
+        assertEquals(1, RecursiveSumDigits.sumOfDigits(1_000_000_000_000L));
+    }
+
+    @Test
+    void testSumOfDigits_bigInteger() {
+        assertEquals(0, RecursiveSumDigits.sumOfDigits(BigInteger.ZERO));
+        assertEquals(89, RecursiveSumDigits.sumOfDigits(BigInteger.valueOf(Long.MIN_VALUE)));
+        // 10^k has digit sum 1 however many zeros the lower halves hold
+        assertEquals(1, RecursiveSumDigits.sumOfDigits(BigInteger.TEN.pow(5000)));
+        assertEquals(9 * 3000, RecursiveSumDigits.sumOfDigits(BigInteger.TEN.pow(3000).subtract(BigInteger.ONE)));
+        Random random = new Random(24);
+        for (int bits : new int[] {63, 64, 65, 127, 128, 1000, 4096, 50_000}) {
+            BigInteger value = new BigInteger(bits, random).setBit(bits - 1);
+            assertEquals(sumOfDecimalChars(value.toString()), RecursiveSumDigits.sumOfDigits(value), "bits " + bits);
+            assertEquals(sumOfDecimalChars(value.toString()), RecursiveSumDigits.sumOfDigits(value.negate()));
+        }
+    }
+
+    @Test
+    void testSumOfDigits_bulkMatchesScalar() {
+        Random random = new Random(25);
+        int[] in = new int[100_003];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = i < 10 ? new int[] {0, 1, -1, 9, 10, 9999, 10_000, -10_000, Integer.MIN_VALUE, Integer.MAX_VALUE}[i]
+                    : random.nextInt() >> random.nextInt(32);
+        }
+        long expectedTotal = 0;
+        int[] expected = new int[in.length];
+        for (int i = 0; i < in.length; i++) {
+            expected[i] = RecursiveSumDigits.sumOfDigits(in[i]);
+            expectedTotal += expected[i];
+        }
+        int[] out = new int[in.length];
+        RecursiveSumDigits.sumOfDigits(in, out);
+        assertArrayEquals(expected, out);
+        int[] chunked = new int[in.length + 5];
+        RecursiveSumDigits.sumOfDigits(in, chunked, ForkJoinPool.commonPool(), 1000);
+        assertEquals(expected[in.length - 1], chunked[in.length - 1]);
+        assertEquals(0, chunked[in.length]);
+        assertEquals(expectedTotal, RecursiveSumDigits.totalSumOfDigits(in));
+        assertEquals(expectedTotal, RecursiveSumDigits.totalSumOfDigits(in, ForkJoinPool.commonPool(), 777));
+        assertEquals(expectedTotal, RecursiveSumDigits.totalSumOfDigits(IntStream.of(in).parallel()));
+    }
+
+    @Test
+    void testSumOfDigits_bulkRejectsBadArguments() {
+        assertThrows(IllegalArgumentException.class, () -> RecursiveSumDigits.sumOfDigits(new int[3], new int[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> RecursiveSumDigits.totalSumOfDigits(new int[3], ForkJoinPool.commonPool(), 0));
+        assertEquals(0, RecursiveSumDigits.totalSumOfDigits(new int[0]));
+    }
 }
@@ -0,0 +1,70 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SearchCursorTest {
+
+    @Test
+    void testIntCursor_randomWalkMatchesLowerBound() {
+        Random random = new Random(22);
+        int[] array = new int[5000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt(10_000);
+        }
+        Arrays.sort(array);
+        IntSearchCursor cursor = RecursiveBinarySearch.cursor(array);
+        int target = 5000;
+        for (int i = 0; i < 20_000; i++) {
+            // Mostly small steps in either direction, with an occasional far jump
+            target = i % 500 == 0 ? random.nextInt(10_200) - 100 : target + random.nextInt(41) - 15;
+            int expected = RecursiveBinarySearch.lowerBound(array, target);
+            assertEquals(expected, cursor.lowerBound(target), "target " + target);
+            assertEquals(expected, cursor.position());
+            assertEquals(RecursiveBinarySearch.binarySearchIterative(array, target, 0, array.length - 1),
+                    cursor.indexOf(target));
+        }
+    }
+
+    @Test
+    void testIntCursor_duplicatesAndEdges() {
+        int[] array = {1, 3, 3, 3, 3, 3, 3, 3, 3, 9};
+        IntSearchCursor cursor = new IntSearchCursor(array);
+        assertEquals(10, cursor.lowerBound(10));
+        assertEquals(1, cursor.lowerBound(3));
+        assertEquals(9, cursor.lowerBound(4));
+        assertEquals(1, cursor.indexOf(3));
+        assertEquals(0, cursor.lowerBound(Integer.MIN_VALUE));
+        assertEquals(-1, cursor.indexOf(2));
+        cursor.moveTo(10);
+        assertEquals(1, cursor.lowerBound(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> cursor.moveTo(11));
+        IntSearchCursor empty = new IntSearchCursor(new int[0]);
+        assertEquals(0, empty.lowerBound(5));
+        assertEquals(-1, empty.indexOf(5));
+    }
+
+    @Test
+    void testStringCursor_forwardScanAndBackwardSteps() {
+        String[] array = new String[2000];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = String.format("key%05d", i * 3);
+        }
+        StringSearchCursor cursor = RecursiveBinarySearch.cursor(array);
+        for (int i = 0; i < 6000; i += 7) {
+            String target = String.format("key%05d", i);
+            assertEquals((i + 2) / 3, cursor.lowerBound(target), target);
+            assertEquals(i % 3 == 0 ? i / 3 : -1, cursor.indexOf(target));
+        }
+        for (int i = 6000; i >= 0; i -= 11) {
+            String target = String.format("key%05d", i);
+            assertEquals(RecursiveBinarySearch.lowerBound(array, target, String::compareTo), cursor.lowerBound(target));
+        }
+        assertEquals(0, cursor.lowerBound("a"));
+        assertEquals(2000, cursor.lowerBound("z"));
+        assertEquals(-1, cursor.indexOf("key00001"));
+        assertEquals(1, cursor.indexOf("key00003"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.amfk.lab12;
+
+/**
+ * A read-only index over a sorted array of ints that answers the same queries as a
+ * binary search over the array, using a layout or model that is faster to search.
+ * Positions are always reported as indices into the original sorted array.
+ */
+public interface SortedIntIndex {
+
+    /** Arrays smaller than this are searched fastest as they are. */
+    int SMALL_SIZE = 4096;
+    /** A learned index is chosen when it needs at most one segment per this many keys. */
+    int KEYS_PER_SEGMENT = 256;
+
+    /**
+     * Builds the index best suited to a sorted array. A learned index is fitted first; if the
+     * keys are regular enough that it needs at most one segment per 256 keys, its prediction
+     * lands within a cache line or two of the answer and it is returned. Otherwise the
+     * distribution is too irregular to model cheaply and a {@link BlockedIntIndex} is built.
+     * Small arrays get an {@link EytzingerIndex}, which is compact and cheap to build.
+     * 
+     * @param sorted the keys in ascending order; the array must not be modified afterwards
+     * @return the index
+     * 
+     * Preconditions:
+     * - sorted is in ascending order; duplicates are allowed.
+     */
+    static SortedIntIndex of(int[] sorted) {
+        if (sorted.length < SMALL_SIZE) {
+            return new EytzingerIndex(sorted);
+        }
+        LearnedIntIndex learned = new LearnedIntIndex(sorted);
+        if ((long) learned.segmentCount() * KEYS_PER_SEGMENT <= sorted.length) {
+            return learned;
+        }
+        return new BlockedIntIndex(sorted);
+    }
+
+    /** @return the number of keys in the index */
+    int size();
+
+    /**
+     * Finds the first position whose key is not less than a target.
+     * 
+     * @param target the value to search for
+     * @return the smallest index i such that sorted[i] >= target, or size() if every key
+     *         is smaller than target
+     */
+    int lowerBound(int target);
+
+    /**
+     * Returns the key at a position of the original sorted array.
+     * 
+     * @param index a position between 0 and size() - 1
+     * @return the key at that position
+     */
+    int keyAt(int index);
+
+    /**
+     * Finds the first position of a target.
+     * 
+     * @param target the value to search for
+     * @return the index of the first occurrence of target, or -1 if it is absent
+     */
+    default int indexOf(int target) {
+        int index = lowerBound(target);
+        return index < size() && keyAt(index) == target ? index : -1;
+    }
+
+    /**
+     * @param target the value to search for
+     * @return true if target is one of the keys
+     */
+    default boolean contains(int target) {
+        return indexOf(target) >= 0;
+    }
+}
@@ -0,0 +1,118 @@
+package com.amfk.lab12;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SortedIntIndexTest {
+
+    private static int lowerBound(int[] sorted, int target) {
+        int i = 0;
+        while (i < sorted.length && sorted[i] < target) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void assertMatchesLinearScan(int[] sorted, int[] targets) {
+        SortedIntIndex[] indexes = {new EytzingerIndex(sorted), new BlockedIntIndex(sorted), new LearnedIntIndex(sorted),
+                new LearnedIntIndex(sorted, 1), new LearnedIntIndex(sorted, 3)};
+        for (SortedIntIndex index : indexes) {
+            assertEquals(sorted.length, index.size());
+            for (int target : targets) {
+                int expected = lowerBound(sorted, target);
+                String message = index.getClass().getSimpleName() + " n=" + sorted.length + " target=" + target;
+                assertEquals(expected, index.lowerBound(target), message);
+                boolean present = expected < sorted.length && sorted[expected] == target;
+                assertEquals(present ? expected : -1, index.indexOf(target), message);
+                assertEquals(present, index.contains(target), message);
+                int interpolated = RecursiveBinarySearch.interpolationSearch(sorted, target, 0, sorted.length - 1);
+                assertEquals(present ? expected : -1, interpolated, message);
+            }
+        }
+    }
+
+    @Test
+    void testLowerBound_allSizesUpToSeveralLevels() {
+        for (int n = 0; n <= 600; n += (n < 40 ? 1 : 37)) {
+            int[] sorted = new int[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = 2 * i + 1;
+            }
+            int[] targets = new int[2 * n + 3];
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = i - 1;
+            }
+            assertMatchesLinearScan(sorted, targets);
+        }
+    }
+
+    @Test
+    void testLowerBound_duplicatesReturnFirstOccurrence() {
+        int[] sorted = {1, 2, 2, 2, 3, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 5};
+        assertMatchesLinearScan(sorted, new int[] {0, 1, 2, 3, 4, 5, 6});
+        assertEquals(1, new BlockedIntIndex(sorted).indexOf(2));
+        assertEquals(5, new EytzingerIndex(sorted).indexOf(4));
+    }
+
+    @Test
+    void testLowerBound_extremeValues() {
+        int[] sorted = {Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE - 1, Integer.MAX_VALUE, Integer.MAX_VALUE};
+        assertMatchesLinearScan(sorted, new int[] {Integer.MIN_VALUE, -2, 0, Integer.MAX_VALUE - 1, Integer.MAX_VALUE});
+        assertEquals(4, new BlockedIntIndex(sorted).indexOf(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testLowerBound_randomKeys() {
+        Random random = new Random(12);
+        int[] sorted = new int[5000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = random.nextInt(20000) - 10000;
+        }
+        Arrays.sort(sorted);
+        int[] targets = new int[2000];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = random.nextInt(22000) - 11000;
+        }
+        assertMatchesLinearScan(sorted, targets);
+    }
+
+    @Test
+    void testLearnedIndex_skewedKeysWithLongRunsOfDuplicates() {
+        int[] sorted = new int[3000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i < 1000 ? i / 100 : i < 2000 ? 1_000_000 : 1_000_000 + (i - 2000) * (i - 2000);
+        }
+        int[] targets = new int[4000];
+        Random random = new Random(18);
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = i % 2 == 0 ? sorted[random.nextInt(sorted.length)] + random.nextInt(3) - 1 : random.nextInt(2_100_000);
+        }
+        assertMatchesLinearScan(sorted, targets);
+    }
+
+    @Test
+    void testOf_choosesLearnedIndexForUniformKeys() {
+        int[] uniform = new int[100_000];
+        for (int i = 0; i < uniform.length; i++) {
+            uniform[i] = 7 * i + (i % 3);
+        }
+        SortedIntIndex index = SortedIntIndex.of(uniform);
+        assertTrue(index instanceof LearnedIntIndex);
+        assertTrue(((LearnedIntIndex) index).segmentCount() <= 2);
+        assertEquals(500, index.indexOf(uniform[500]));
+
+        Random random = new Random(19);
+        // Heavy-tailed gaps between keys: no line stays close to the positions for long
+        int[] irregular = new int[100_000];
+        long key = 0;
+        for (int i = 0; i < irregular.length; i++) {
+            key += Math.min(20_000, (long) (1 / Math.pow(random.nextDouble(), 1.5)));
+            irregular[i] = (int) key;
+        }
+        assertTrue(SortedIntIndex.of(irregular) instanceof BlockedIntIndex);
+        assertTrue(SortedIntIndex.of(new int[] {1, 2, 3}) instanceof EytzingerIndex);
+        assertThrows(IllegalArgumentException.class, () -> new LearnedIntIndex(uniform, 0));
+    }
+}
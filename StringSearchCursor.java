@@ -0,0 +1,74 @@
+package com.amfk.lab12;
+
+/**
+ * A finger over a sorted String array: it remembers where the last search ended and starts the
+ * next one there, galloping outwards, so a search costs O(log d) for a distance d from the
+ * previous answer rather than O(log n). Runs of nearby lookups, such as a time cursor moving
+ * forward, get cheaper than independent binary searches; far jumps cost at most twice as much.
+ * 
+ * A cursor holds only the array and one position, so it is cheap to create. It is not safe for
+ * use by several threads at once; give each thread its own cursor over the shared array.
+ */
+public final class StringSearchCursor {
+
+    private final String[] array;
+    private int position;
+
+    /**
+     * Creates a cursor at the start of an array.
+     * 
+     * @param array the sorted array to search; it must not be modified while the cursor is in use
+     * 
+     * Preconditions:
+     * - The array must be sorted lexicographically, by String.compareTo.
+     */
+    public StringSearchCursor(String[] array) {
+        this.array = array;
+    }
+
+    /** @return the position where the last search ended, initially 0 */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Moves the cursor to a position without searching, e.g. to a known starting point.
+     * 
+     * @param position a position between 0 and the array length
+     * @throws IndexOutOfBoundsException if position is out of range
+     */
+    public void moveTo(int position) {
+        if (position < 0 || position > array.length) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of bounds for length " + array.length);
+        }
+        this.position = position;
+    }
+
+    /**
+     * Finds the first position whose value is not less than a target, starting from the last position.
+     * 
+     * @param target the value to search for
+     * @return the smallest index i such that array[i] >= target, or the array length if there is none
+     * 
+     * Postconditions:
+     * - The cursor is at the returned position.
+     */
+    public int lowerBound(String target) {
+        position = RecursiveBinarySearch.fingerLowerBound(array.length, position, i -> array[i].compareTo(target) < 0);
+        return position;
+    }
+
+    /**
+     * Finds the first position of a target, starting from the last position.
+     * 
+     * @param target the value to search for
+     * @return the index of the first occurrence of target, or -1 if it is absent
+     * 
+     * Postconditions:
+     * - The cursor is at the lower bound of target, whether or not it was found.
+     */
+    public int indexOf(String target) {
+        int index = lowerBound(target);
+        return index < array.length && array[index].equals(target) ? index : -1;
+    }
+}